@@ -0,0 +1,41 @@
+#!/usr/bin/env python3
+"""Compare two JMH JSON result files, e.g. from the base and head commits.
+
+    python3 compare_results.py base.json head.json
+"""
+import json
+import sys
+
+
+def load(path):
+    with open(path) as f:
+        runs = json.load(f)
+    results = {}
+    for run in runs:
+        params = ",".join(f"{k}={v}" for k, v in sorted(run.get("params", {}).items()))
+        name = run["benchmark"].rsplit(".", 2)
+        key = ".".join(name[-2:]) + (f"[{params}]" if params else "")
+        metric = run["primaryMetric"]
+        results[key] = (metric["score"], metric["scoreError"], metric["scoreUnit"])
+    return results
+
+
+def main():
+    if len(sys.argv) != 3:
+        print(__doc__.strip())
+        sys.exit(2)
+    base, head = load(sys.argv[1]), load(sys.argv[2])
+    width = max((len(k) for k in base.keys() | head.keys()), default=10)
+    print(f"{'benchmark':<{width}}  {'base':>12}  {'head':>12}  {'unit':<8}  change")
+    for key in sorted(base.keys() | head.keys()):
+        b, h = base.get(key), head.get(key)
+        if b is None or h is None:
+            present = b or h
+            print(f"{key:<{width}}  {(b or ('-',))[0]!s:>12}  {(h or ('-',))[0]!s:>12}  {present[2]:<8}")
+            continue
+        change = (h[0] - b[0]) / b[0] * 100 if b[0] else float("nan")
+        print(f"{key:<{width}}  {b[0]:>12.3f}  {h[0]:>12.3f}  {h[2]:<8}  {change:+.1f}%")
+
+
+if __name__ == "__main__":
+    main()
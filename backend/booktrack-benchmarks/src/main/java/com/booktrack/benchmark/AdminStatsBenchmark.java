@@ -0,0 +1,43 @@
+package com.booktrack.benchmark;
+
+import com.booktrack.model.Booking;
+import com.booktrack.model.Service;
+import com.booktrack.model.User;
+import com.booktrack.service.BookingStats;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AdminStatsBenchmark {
+
+    @Param({"10000", "100000"})
+    int bookings;
+
+    private List<Booking> all;
+
+    @Setup
+    public void setup() {
+        List<Service> services = Fixtures.services(500, 7);
+        Random rnd = new Random(7);
+        all = new ArrayList<>(bookings);
+        for (int i = 0; i < bookings; i++) {
+            User u = Fixtures.user("user", i % 1000);
+            all.add(Booking.newBooking(u, services.get(rnd.nextInt(services.size())), "2026-01-01", "10:00"));
+        }
+    }
+
+    @Benchmark
+    public List<Map.Entry<String, Long>> topServices() {
+        return BookingStats.top(BookingStats.countByService(all), 5);
+    }
+}
@@ -0,0 +1,37 @@
+package com.booktrack.benchmark;
+
+import com.booktrack.service.BookingSocketService;
+import com.booktrack.service.Tracer;
+import com.corundumstudio.socketio.Configuration;
+import com.corundumstudio.socketio.SocketIOServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingSocketBenchmark {
+
+    private BookingSocketService socketService;
+
+    @Setup
+    public void setup() {
+        socketService = new BookingSocketService(new SocketIOServer(new Configuration()), new SimpleMeterRegistry(), Tracer.disabled());
+    }
+
+    @Benchmark
+    public Map<String, String> statusPayload() {
+        return BookingSocketService.statusPayload("3f2b8a4e-1c2d-4e5f-8a9b-0c1d2e3f4a5b", "accepted");
+    }
+
+    @Benchmark
+    public void emitWithoutClients() {
+        socketService.emitBookingStatusUpdate("3f2b8a4e-1c2d-4e5f-8a9b-0c1d2e3f4a5b", "accepted");
+    }
+}
@@ -0,0 +1,89 @@
+package com.booktrack.benchmark;
+
+import com.booktrack.model.Review;
+import com.booktrack.model.Service;
+import com.booktrack.service.CatalogResponseCache;
+import com.booktrack.service.ResponseFormats;
+import com.booktrack.service.ServiceViews;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Per-request cost of {@code GET /api/services} once the data is in memory:
+ * building the summary maps and serializing them versus writing the cached bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CatalogResponseBenchmark {
+
+    @Param({"50", "500"})
+    int services;
+
+    private ObjectMapper objectMapper;
+    private List<Service> catalog;
+    private Map<String, List<Review>> reviews;
+    private CatalogResponseCache cache;
+    private CatalogResponseCache.Key key;
+    private Supplier<List<Map<String, Object>>> loader;
+
+    @Setup
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        catalog = Fixtures.services(services, 42);
+        reviews = new HashMap<>();
+        for (int i = 0; i < catalog.size(); i++) {
+            Service s = catalog.get(i);
+            reviews.put(s.getId(), Fixtures.reviews(s, i % 12, i));
+        }
+        loader = () -> catalog.stream()
+                .map(s -> ServiceViews.summary(s, reviews.get(s.getId())))
+                .collect(Collectors.toList());
+        cache = new CatalogResponseCache(objectMapper, ResponseFormats.create(Jackson2ObjectMapperBuilder::json),
+                new SimpleMeterRegistry(), 64L * 1024 * 1024);
+        key = new CatalogResponseCache.Key(null, null, null, null);
+        cache.get(key, loader);
+    }
+
+    @TearDown
+    public void tearDown() {
+        cache.destroy();
+    }
+
+    @Benchmark
+    public int mapSerialization() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        objectMapper.writeValue(out, loader.get());
+        return out.size();
+    }
+
+    @Benchmark
+    public int cachedIdentity() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        byte[] body = cache.get(key, loader).identity();
+        out.write(body, 0, body.length);
+        return out.size();
+    }
+
+    @Benchmark
+    public int cachedGzip() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        byte[] body = cache.get(key, loader).gzip();
+        out.write(body, 0, body.length);
+        return out.size();
+    }
+}
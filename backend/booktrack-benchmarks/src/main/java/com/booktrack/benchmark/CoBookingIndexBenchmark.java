@@ -0,0 +1,80 @@
+package com.booktrack.benchmark;
+
+import com.booktrack.service.CoBookingIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CoBookingIndexBenchmark {
+
+    @Param({"1000"})
+    int services;
+
+    @Param({"10000", "100000"})
+    int users;
+
+    private CoBookingIndex index;
+    private String popular;
+    private String niche;
+    private Random rnd;
+    private int newUsers;
+
+    @Setup
+    public void setup() throws IOException {
+        rnd = new Random(23);
+        index = new CoBookingIndex();
+        Instant now = Instant.now();
+        for (int u = 0; u < users; u++) {
+            int n = 1 + rnd.nextInt(6);
+            for (int i = 0; i < n; i++) {
+                index.add("user-" + u, "svc-" + skewed(), now);
+            }
+        }
+        popular = "svc-0";
+        niche = "svc-" + (services - 1);
+
+        long start = System.nanoTime();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        index.write(out);
+        long written = System.nanoTime();
+        CoBookingIndex.read(new ByteArrayInputStream(out.toByteArray()));
+        long read = System.nanoTime();
+        System.out.printf("%n[co-booking] %d services, %d users, %d pairs, ~%d KiB; snapshot %d KiB, write %d ms, read %d ms%n",
+                index.services(), index.users(), index.pairs(), index.estimatedBytes() / 1024, out.size() / 1024,
+                (written - start) / 1_000_000, (read - written) / 1_000_000);
+    }
+
+    // Roughly Zipf-shaped popularity, so svc-0 has the most co-booked neighbours.
+    private int skewed() {
+        return (int) (services * Math.pow(rnd.nextDouble(), 3));
+    }
+
+    @Benchmark
+    public List<CoBookingIndex.Recommendation> topPopular() {
+        return index.top(popular, 5);
+    }
+
+    @Benchmark
+    public List<CoBookingIndex.Recommendation> topNiche() {
+        return index.top(niche, 5);
+    }
+
+    @Benchmark
+    public boolean addBooking() {
+        // A returning user booking another service: one counter bump per earlier booking.
+        int u = newUsers++ % users;
+        return index.add("user-" + u, "svc-" + skewed(), null);
+    }
+}
@@ -0,0 +1,67 @@
+package com.booktrack.benchmark;
+
+import com.booktrack.model.Booking;
+import com.booktrack.model.Review;
+import com.booktrack.model.Service;
+import com.booktrack.model.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+final class Fixtures {
+
+    static final String[] CATEGORIES = {"cleaning", "plumbing", "electrical", "beauty", "tutoring", "moving"};
+
+    private Fixtures() {
+    }
+
+    static User user(String role, int i) {
+        return User.newUser("user" + i + "@example.com", "User " + i, role, "555-0100", "x");
+    }
+
+    static List<Service> services(int n, long seed) {
+        Random rnd = new Random(seed);
+        List<Service> services = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Service s = Service.newService(
+                    user("provider", i % 50),
+                    "Service " + i,
+                    "Professional service number " + i + " with a reasonably long description",
+                    CATEGORIES[rnd.nextInt(CATEGORIES.length)],
+                    10 + rnd.nextInt(490),
+                    "City " + rnd.nextInt(20),
+                    30 + 15 * rnd.nextInt(8),
+                    "https://images.example.com/" + i + ".jpg"
+            );
+            services.add(s);
+        }
+        return services;
+    }
+
+    static List<Booking> bookings(List<Service> services, int n, long seed) {
+        Random rnd = new Random(seed);
+        String[] statuses = {"pending", "accepted", "completed", "cancelled"};
+        List<Booking> bookings = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Booking b = Booking.newBooking(
+                    user("user", i % 200),
+                    services.get(rnd.nextInt(services.size())),
+                    String.format("2026-%02d-%02d", 1 + rnd.nextInt(12), 1 + rnd.nextInt(28)),
+                    String.format("%02d:00", 8 + rnd.nextInt(10))
+            );
+            b.setStatus(statuses[rnd.nextInt(statuses.length)]);
+            bookings.add(b);
+        }
+        return bookings;
+    }
+
+    static List<Review> reviews(Service s, int n, long seed) {
+        Random rnd = new Random(seed);
+        List<Review> reviews = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            reviews.add(Review.newReview(user("user", i), s.getId(), "booking-" + i, 1 + rnd.nextInt(5), "Comment " + i));
+        }
+        return reviews;
+    }
+}
@@ -0,0 +1,38 @@
+package com.booktrack.benchmark;
+
+import com.booktrack.model.User;
+import com.booktrack.service.JwtService;
+import com.booktrack.service.Tracer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtService jwtService;
+    private User user;
+    private String authHeader;
+
+    @Setup
+    public void setup() {
+        jwtService = new JwtService("booktrack-benchmark-secret-key-0123456789", 10080, null, Tracer.disabled());
+        user = Fixtures.user("user", 1);
+        authHeader = "Bearer " + jwtService.createAccessToken(user);
+    }
+
+    @Benchmark
+    public String createAccessToken() {
+        return jwtService.createAccessToken(user);
+    }
+
+    @Benchmark
+    public String parseToken() {
+        return jwtService.parseSubject(authHeader);
+    }
+}
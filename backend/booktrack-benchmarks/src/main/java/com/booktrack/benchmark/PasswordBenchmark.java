@@ -0,0 +1,37 @@
+package com.booktrack.benchmark;
+
+import com.booktrack.service.PasswordService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class PasswordBenchmark {
+
+    @Param({"8", "10", "12"})
+    int strength;
+
+    private PasswordService passwordService;
+    private String hashed;
+
+    @Setup
+    public void setup() {
+        passwordService = new PasswordService(strength);
+        hashed = passwordService.hashPassword("correct horse battery staple");
+    }
+
+    @Benchmark
+    public String hash() {
+        return passwordService.hashPassword("correct horse battery staple");
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return passwordService.matches("correct horse battery staple", hashed);
+    }
+}
@@ -0,0 +1,68 @@
+package com.booktrack.benchmark;
+
+import com.booktrack.service.RateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contention on the rate limiter with all hardware threads: every thread on
+ * one hot key (worst-case CAS contention), threads spread over a large key
+ * space (shard and map contention, bucket creation and eviction), and a flood
+ * of never-seen keys against full shards (the overflow path).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(Threads.MAX)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    @Param({"16", "64", "256"})
+    int shards;
+
+    private RateLimiter limiter;
+    private RateLimiter fullLimiter;
+    private RateLimiter.Policy policy;
+    private String[] keys;
+
+    @Setup
+    public void setup() {
+        limiter = new RateLimiter(new SimpleMeterRegistry(), shards, 1_000_000, 30);
+        policy = RateLimiter.Policy.of("bench", 1_000_000, 1, TimeUnit.SECONDS);
+        keys = new String[100_000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "10.0." + (i >> 8) + "." + (i & 0xff);
+        }
+        fullLimiter = new RateLimiter(new SimpleMeterRegistry(), shards, 100_000, 30);
+        RateLimiter.Policy slow = RateLimiter.Policy.of("bench", 1, 1, TimeUnit.HOURS);
+        for (String key : keys) {
+            fullLimiter.tryAcquire(slow, key);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        limiter.destroy();
+        fullLimiter.destroy();
+    }
+
+    @Benchmark
+    public long hotKey() {
+        return limiter.tryAcquire(policy, "203.0.113.7");
+    }
+
+    @Benchmark
+    public long keyFlood() {
+        return fullLimiter.tryAcquire(policy, "flood-" + ThreadLocalRandom.current().nextLong());
+    }
+
+    @Benchmark
+    public long spreadKeys() {
+        return limiter.tryAcquire(policy, keys[ThreadLocalRandom.current().nextInt(keys.length)]);
+    }
+}
@@ -0,0 +1,88 @@
+package com.booktrack.benchmark;
+
+import com.booktrack.model.Review;
+import com.booktrack.model.Service;
+import com.booktrack.service.ResponseFormats;
+import com.booktrack.service.ServiceViews;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * JSON versus the binary encodings offered through {@code Accept} on the list
+ * endpoints: the {@code GET /api/services} summaries and a booking list as
+ * returned by {@code GET /api/bookings/user/my-bookings}. Measures encoding
+ * on the server and decoding into a tree, as a generic client would; payload
+ * sizes (plain and gzipped) are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseEncodingBenchmark {
+
+    @Param({"services", "bookings"})
+    String list;
+
+    @Param({"json", "cbor", "smile"})
+    String format;
+
+    @Param({"500"})
+    int size;
+
+    private ObjectMapper mapper;
+    private Object payload;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() throws IOException {
+        ResponseFormats formats = ResponseFormats.create(Jackson2ObjectMapperBuilder::json);
+        mapper = switch (format) {
+            case "cbor" -> formats.cbor();
+            case "smile" -> formats.smile();
+            default -> Jackson2ObjectMapperBuilder.json().build();
+        };
+        List<Service> services = Fixtures.services(size, 42);
+        if ("services".equals(list)) {
+            payload = services.stream()
+                    .map(s -> {
+                        List<Review> reviews = Fixtures.reviews(s, s.getName().length() % 12, s.getName().hashCode());
+                        return ServiceViews.summary(s, reviews);
+                    })
+                    .toList();
+        } else {
+            payload = Fixtures.bookings(services, size, 7);
+        }
+        encoded = mapper.writeValueAsBytes(payload);
+        System.out.printf("%n%s/%s: %d bytes, %d gzipped%n", list, format, encoded.length, gzipped(encoded));
+    }
+
+    @Benchmark
+    public int serialize() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(encoded.length);
+        mapper.writeValue(out, payload);
+        return out.size();
+    }
+
+    @Benchmark
+    public JsonNode deserialize() throws IOException {
+        return mapper.readTree(encoded);
+    }
+
+    private static int gzipped(byte[] body) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(bos)) {
+            gz.write(body);
+        }
+        return bos.size();
+    }
+}
@@ -0,0 +1,44 @@
+package com.booktrack.benchmark;
+
+import com.booktrack.model.Review;
+import com.booktrack.model.Service;
+import com.booktrack.service.ServiceViews;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceViewsBenchmark {
+
+    @Param({"0", "10", "200"})
+    int reviewsPerService;
+
+    private List<Service> services;
+    private List<List<Review>> reviews;
+
+    @Setup
+    public void setup() {
+        services = Fixtures.services(100, 11);
+        reviews = new ArrayList<>(services.size());
+        for (int i = 0; i < services.size(); i++) {
+            reviews.add(Fixtures.reviews(services.get(i), reviewsPerService, i));
+        }
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> summaries() {
+        List<Map<String, Object>> out = new ArrayList<>(services.size());
+        for (int i = 0; i < services.size(); i++) {
+            out.add(ServiceViews.summary(services.get(i), reviews.get(i)));
+        }
+        return out;
+    }
+}
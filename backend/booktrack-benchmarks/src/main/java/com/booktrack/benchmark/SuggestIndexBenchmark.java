@@ -0,0 +1,67 @@
+package com.booktrack.benchmark;
+
+import com.booktrack.service.SuggestIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SuggestIndexBenchmark {
+
+    private static final String[] ADJECTIVES = {
+            "deep", "express", "premium", "eco", "budget", "mobile", "weekend", "emergency", "family", "studio"
+    };
+    private static final String[] NOUNS = {
+            "cleaning", "plumbing", "wiring", "haircut", "massage", "tutoring", "moving", "painting", "gardening", "repair"
+    };
+
+    @Param({"1000", "100000"})
+    int services;
+
+    @Param({"c", "cle", "deep clea"})
+    String prefix;
+
+    private SuggestIndex index;
+    private SuggestIndex.Doc[] renames;
+    private int updates;
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(19);
+        List<SuggestIndex.Doc> docs = new ArrayList<>(services);
+        for (int i = 0; i < services; i++) {
+            String name = ADJECTIVES[rnd.nextInt(ADJECTIVES.length)] + " "
+                    + NOUNS[rnd.nextInt(NOUNS.length)] + " " + i;
+            docs.add(new SuggestIndex.Doc("svc-" + i, name, Fixtures.CATEGORIES[rnd.nextInt(Fixtures.CATEGORIES.length)],
+                    "Provider " + rnd.nextInt(Math.max(1, services / 20))));
+        }
+        index = SuggestIndex.build(docs, id -> id.hashCode() & 0xff);
+        renames = new SuggestIndex.Doc[]{
+                new SuggestIndex.Doc("svc-0", "renamed cleaning", "cleaning", "Provider 0"),
+                new SuggestIndex.Doc("svc-0", "deep cleaning 0", "cleaning", "Provider 0")
+        };
+        System.out.printf("%n[suggest] %d services, %d keys, ~%d KiB%n",
+                services, index.size(), index.estimatedBytes() / 1024);
+    }
+
+    @Benchmark
+    public List<SuggestIndex.Suggestion> lookup() {
+        return index.lookup(prefix, 10);
+    }
+
+    @Benchmark
+    public SuggestIndex updateOne() {
+        // with() must be applied to the latest index, so alternate between two names.
+        index = index.with(List.of(renames[updates++ & 1]), Set.of(), id -> 1);
+        return index;
+    }
+}
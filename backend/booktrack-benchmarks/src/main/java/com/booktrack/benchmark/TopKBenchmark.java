@@ -0,0 +1,57 @@
+package com.booktrack.benchmark;
+
+import com.booktrack.service.TopK;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TopKBenchmark {
+
+    private static final Comparator<double[]> BEST_FIRST = Comparator.comparingDouble((double[] a) -> a[0]).reversed();
+
+    @Param({"10000", "200000"})
+    int candidates;
+
+    @Param({"21"})
+    int k;
+
+    private double[][] scores;
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(47);
+        scores = new double[candidates][];
+        for (int i = 0; i < candidates; i++) {
+            scores[i] = new double[]{rnd.nextDouble(), i};
+        }
+    }
+
+    @Benchmark
+    public List<double[]> heap() {
+        TopK<double[]> top = new TopK<>(k, BEST_FIRST);
+        for (double[] s : scores) {
+            top.offer(s);
+        }
+        return top.result();
+    }
+
+    @Benchmark
+    public List<double[]> fullSort() {
+        List<double[]> all = new ArrayList<>(candidates);
+        for (double[] s : scores) {
+            all.add(s);
+        }
+        all.sort(BEST_FIRST);
+        return all.subList(0, k);
+    }
+}
@@ -0,0 +1,68 @@
+package com.booktrack.config;
+
+import com.booktrack.service.MongoQueryProfiler;
+import com.booktrack.service.Tracer;
+import com.mongodb.ReadPreference;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class MongoConfig {
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoQueryProfilerCustomizer(MongoQueryProfiler profiler) {
+        return settings -> settings.addCommandListener(profiler);
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoTracingCustomizer(Tracer tracer) {
+        return settings -> settings.addCommandListener(tracer.mongoCommandListener());
+    }
+
+    @Bean
+    public MongoCustomConversions mongoCustomConversions() {
+        return new MongoCustomConversions(List.of(new StringToInstantConverter()));
+    }
+
+    /**
+     * Default template (and the one repositories use): primary reads, so
+     * writes and read-your-own-write paths always see the latest state.
+     * Declared here because defining {@link #catalogMongoTemplate} turns off
+     * Spring Boot's own.
+     */
+    @Bean
+    @Primary
+    public MongoTemplate mongoTemplate(MongoDatabaseFactory factory, MongoConverter converter) {
+        return new MongoTemplate(factory, converter);
+    }
+
+    /**
+     * Template for public, read-only catalog endpoints. With
+     * {@code app.mongo.catalog-reads.secondary=true} it prefers secondaries
+     * lagging at most {@code max-staleness-seconds} (the driver's minimum is
+     * 90) and falls back to the primary when none qualifies.
+     */
+    @Bean
+    public MongoTemplate catalogMongoTemplate(
+            MongoDatabaseFactory factory,
+            MongoConverter converter,
+            @Value("${app.mongo.catalog-reads.secondary:false}") boolean secondary,
+            @Value("${app.mongo.catalog-reads.max-staleness-seconds:90}") long maxStalenessSeconds
+    ) {
+        MongoTemplate template = new MongoTemplate(factory, converter);
+        if (secondary) {
+            template.setReadPreference(ReadPreference.secondaryPreferred(maxStalenessSeconds, TimeUnit.SECONDS));
+        }
+        return template;
+    }
+}
@@ -1,14 +1,26 @@
 package com.booktrack.config;
 
 import com.corundumstudio.socketio.SocketIOServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
 
+/**
+ * Creates the Socket.IO server during context refresh but only binds it once
+ * the application is ready, asynchronously, so Netty's startup stays off the
+ * path to the first HTTP request. Events broadcast before the bind completes
+ * simply have no clients to reach.
+ */
 @Configuration
 public class SocketIOConfig implements DisposableBean {
 
+    private static final Logger log = LoggerFactory.getLogger(SocketIOConfig.class);
+
     private SocketIOServer server;
 
     @Bean
@@ -20,10 +32,18 @@ public class SocketIOConfig implements DisposableBean {
         config.setHostname(host);
         config.setPort(port);
         server = new SocketIOServer(config);
-        server.start();
         return server;
     }
 
+    @EventListener(ApplicationReadyEvent.class)
+    public void startSocketIOServer() {
+        server.startAsync().addListener(f -> {
+            if (!f.isSuccess()) {
+                log.error("Socket.IO server failed to start", f.cause());
+            }
+        });
+    }
+
     @Override
     public void destroy() {
         if (server != null) {
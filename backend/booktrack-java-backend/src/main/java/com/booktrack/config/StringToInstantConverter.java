@@ -0,0 +1,48 @@
+package com.booktrack.config;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Reads timestamps that were stored as ISO-8601 strings (before the move to
+ * native dates, or by the Python backend) into {@link Instant} fields.
+ */
+@ReadingConverter
+public class StringToInstantConverter implements Converter<String, Instant> {
+
+    @Override
+    public Instant convert(String source) {
+        return parse(source);
+    }
+
+    public static Instant parse(String source) {
+        String s = source.trim();
+        if (s.isEmpty()) {
+            return null;
+        }
+        try {
+            return OffsetDateTime.parse(s).toInstant();
+        } catch (DateTimeParseException ignored) {
+        }
+        try {
+            return Instant.parse(s);
+        } catch (DateTimeParseException ignored) {
+        }
+        try {
+            return LocalDateTime.parse(s).toInstant(ZoneOffset.UTC);
+        } catch (DateTimeParseException ignored) {
+        }
+        try {
+            return LocalDate.parse(s).atStartOfDay().toInstant(ZoneOffset.UTC);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
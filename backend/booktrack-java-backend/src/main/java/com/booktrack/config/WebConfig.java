@@ -1,8 +1,24 @@
 package com.booktrack.config;
 
+import com.booktrack.filter.LoadShedFilter;
+import com.booktrack.filter.RateLimitFilter;
+import com.booktrack.filter.TracingFilter;
+import com.booktrack.service.ConcurrencyLimiter;
+import com.booktrack.service.JwtService;
+import com.booktrack.service.RateLimiter;
+import com.booktrack.service.ResponseFormats;
+import com.booktrack.service.Tracer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
@@ -12,11 +28,16 @@ import java.util.Arrays;
 @Configuration
 public class WebConfig {
 
+    private static final int TRACING_ORDER = Ordered.HIGHEST_PRECEDENCE;
+    private static final int CORS_ORDER = Ordered.HIGHEST_PRECEDENCE + 10;
+    private static final int LOAD_SHED_ORDER = Ordered.HIGHEST_PRECEDENCE + 20;
+    private static final int RATE_LIMIT_ORDER = Ordered.HIGHEST_PRECEDENCE + 30;
+
     @Value("${app.cors.origins:*}")
     private String corsOrigins;
 
     @Bean
-    public CorsFilter corsFilter() {
+    public FilterRegistrationBean<CorsFilter> corsFilter() {
         CorsConfiguration config = new CorsConfiguration();
         if ("*".equals(corsOrigins)) {
             config.addAllowedOriginPattern("*");
@@ -31,6 +52,73 @@ public class WebConfig {
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", config);
-        return new CorsFilter(source);
+
+        FilterRegistrationBean<CorsFilter> registration = new FilterRegistrationBean<>(new CorsFilter(source));
+        registration.setOrder(CORS_ORDER);
+        return registration;
+    }
+
+    @Bean
+    public ResponseFormats responseFormats(ObjectProvider<Jackson2ObjectMapperBuilder> builders) {
+        return ResponseFormats.create(builders::getObject);
+    }
+
+    // Replace Spring MVC's default CBOR/Smile converters in place (after JSON,
+    // which therefore stays the default) with ones sharing the app's Jackson setup.
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(ResponseFormats formats) {
+        return new MappingJackson2CborHttpMessageConverter(formats.cbor());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(ResponseFormats formats) {
+        return new MappingJackson2SmileHttpMessageConverter(formats.smile());
+    }
+
+    @Bean
+    public FilterRegistrationBean<TracingFilter> tracingFilter(
+            Tracer tracer,
+            @Value("${app.tracing.enabled:true}") boolean enabled
+    ) {
+        FilterRegistrationBean<TracingFilter> registration = new FilterRegistrationBean<>(new TracingFilter(tracer));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(TRACING_ORDER);
+        registration.setEnabled(enabled);
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<LoadShedFilter> loadShedFilter(
+            ConcurrencyLimiter limiter,
+            JwtService jwtService,
+            ObjectMapper objectMapper,
+            @Value("${app.load-shedding.enabled:true}") boolean enabled
+    ) {
+        FilterRegistrationBean<LoadShedFilter> registration =
+                new FilterRegistrationBean<>(new LoadShedFilter(limiter, jwtService, objectMapper));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(LOAD_SHED_ORDER);
+        registration.setEnabled(enabled);
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(
+            RateLimiter limiter,
+            JwtService jwtService,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${app.ratelimit.login-per-ip:20/60s}") String loginPerIp,
+            @Value("${app.ratelimit.login-per-email:5/60s}") String loginPerEmail,
+            @Value("${app.ratelimit.register-per-ip:5/60s}") String registerPerIp,
+            @Value("${app.ratelimit.write-per-user:120/60s}") String writePerUser,
+            @Value("${app.ratelimit.enabled:true}") boolean enabled
+    ) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(new RateLimitFilter(
+                limiter, jwtService, objectMapper, meterRegistry, loginPerIp, loginPerEmail, registerPerIp, writePerUser));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(RATE_LIMIT_ORDER);
+        registration.setEnabled(enabled);
+        return registration;
     }
 }
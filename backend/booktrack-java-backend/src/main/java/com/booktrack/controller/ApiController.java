@@ -1,26 +1,63 @@
 package com.booktrack.controller;
 
 import com.booktrack.dto.*;
+import com.booktrack.event.CatalogChangedEvent;
 import com.booktrack.model.*;
 import com.booktrack.repository.*;
 import com.booktrack.service.BookingSocketService;
+import com.booktrack.service.BookingStats;
+import com.booktrack.service.CatalogFacetService;
+import com.booktrack.service.CatalogResponseCache;
+import com.booktrack.service.CatalogSearchService;
+import com.booktrack.service.CatalogSnapshotService;
+import com.booktrack.service.CatalogStatsService;
+import com.booktrack.service.CoBookingIndex;
+import com.booktrack.service.IdempotencyService;
 import com.booktrack.service.JwtService;
+import com.booktrack.service.MongoQueryProfiler;
 import com.booktrack.service.PasswordService;
+import com.booktrack.service.PaymentReconciler;
+import com.booktrack.service.ProviderLanes;
+import com.booktrack.service.ProviderRollupService;
+import com.booktrack.service.RecommendationService;
+import com.booktrack.service.ResponseFormats;
+import com.booktrack.service.ServiceImportService;
+import com.booktrack.service.ServiceViews;
+import com.booktrack.service.StripeGateway;
+import com.booktrack.service.SuggestIndex;
+import com.booktrack.service.SuggestService;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.stripe.model.Event;
 import com.stripe.model.checkout.Session;
 import com.stripe.net.Webhook;
 import com.stripe.param.checkout.SessionCreateParams;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -37,7 +74,25 @@ public class ApiController {
     private final PasswordService passwordService;
     private final JwtService jwtService;
     private final MongoTemplate mongoTemplate;
+    @Qualifier("catalogMongoTemplate")
+    private final MongoTemplate catalogMongoTemplate;
     private final BookingSocketService bookingSocketService;
+    private final CatalogResponseCache catalogResponseCache;
+    private final CatalogSnapshotService catalogSnapshot;
+    private final CatalogStatsService catalogStats;
+    private final CatalogSearchService catalogSearchService;
+    private final CatalogFacetService catalogFacetService;
+    private final SuggestService suggestService;
+    private final StripeGateway stripeGateway;
+    private final MongoQueryProfiler mongoQueryProfiler;
+    private final ServiceImportService serviceImportService;
+    private final ProviderRollupService providerRollups;
+    private final IdempotencyService idempotencyService;
+    private final ProviderLanes providerLanes;
+    private final PaymentReconciler paymentReconciler;
+    private final ResponseFormats responseFormats;
+    private final RecommendationService recommendations;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${app.stripe.webhook-secret:}")
     private String webhookSecret;
@@ -121,74 +176,138 @@ public class ApiController {
                 body.getImageUrl()
         );
 
-        return serviceRepo.save(service);
+        Service saved = serviceRepo.save(service);
+        eventPublisher.publishEvent(new CatalogChangedEvent(saved.getId()));
+        return saved;
+    }
+
+    @PostMapping(value = "/services/import", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<Map<String, Object>> importServices(
+            HttpServletRequest request,
+            @RequestHeader("Authorization") String authHeader
+    ) throws IOException {
+        User current = jwtService.getCurrentUser(authHeader);
+        if (!"provider".equals(current.getRole())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Only providers can create services");
+        }
+
+        ServiceImportService.Format format = request.getContentType().contains("csv")
+                ? ServiceImportService.Format.CSV
+                : ServiceImportService.Format.NDJSON;
+        Map<String, Object> report = serviceImportService.importServices(current, request.getInputStream(), format);
+        // An aborted import still reports what it inserted before stopping.
+        return report.containsKey("aborted") ? ResponseEntity.badRequest().body(report) : ResponseEntity.ok(report);
     }
 
     @GetMapping("/services")
-    public List<Map<String, Object>> getServices(
+    public ResponseEntity<?> getServices(
             @RequestParam(required = false) String category,
             @RequestParam(required = false) String location,
             @RequestParam(required = false) Double min_price,
-            @RequestParam(required = false) Double max_price
+            @RequestParam(required = false) Double max_price,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
     ) {
-        Query q = new Query();
-        List<Criteria> criteria = new ArrayList<>();
-
-        if (category != null) {
-            criteria.add(Criteria.where("category").is(category));
+        CatalogResponseCache.Key key = new CatalogResponseCache.Key(category, location, min_price, max_price);
+        if (!key.cacheable()) {
+            return ResponseEntity.ok(findServiceSummaries(catalogMongoTemplate, category, location, min_price, max_price));
         }
-        if (location != null) {
-            criteria.add(Criteria.where("location").regex(location, "i"));
+
+        // Cache entries are reloaded right after catalog writes, so they read
+        // from the primary rather than pin a lagging secondary's view. The
+        // local snapshot answers instead while it matches the catalog.
+        CatalogResponseCache.Entry entry = catalogResponseCache.get(key, () -> {
+            List<Map<String, Object>> fromSnapshot = catalogSnapshot.summaries(category);
+            return fromSnapshot != null ? fromSnapshot : findServiceSummaries(mongoTemplate, category, null, null, null);
+        });
+
+        ResponseEntity.BodyBuilder res = ResponseEntity.ok()
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        MediaType binary = responseFormats.negotiate(accept);
+        if (binary != null) {
+            return res.contentType(binary).body(catalogResponseCache.encoded(entry, binary));
         }
-        if (min_price != null || max_price != null) {
-            Criteria priceCriteria = Criteria.where("price");
-            if (min_price != null && max_price != null) {
-                priceCriteria.gte(min_price).lte(max_price);
-            } else if (min_price != null) {
-                priceCriteria.gte(min_price);
-            } else {
-                priceCriteria.lte(max_price);
-            }
-            criteria.add(priceCriteria);
+        res.contentType(MediaType.APPLICATION_JSON);
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            return res.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(entry.gzip());
         }
+        return res.body(entry.identity());
+    }
 
-        if (!criteria.isEmpty()) {
-            q.addCriteria(new Criteria().andOperator(criteria.toArray(new Criteria[0])));
+    private List<Map<String, Object>> findServiceSummaries(
+            MongoTemplate mongo,
+            String category,
+            String location,
+            Double minPrice,
+            Double maxPrice
+    ) {
+        Query q = new Query();
+        Criteria filter = CatalogSearchService.filter(category, location, minPrice, maxPrice);
+        if (filter != null) {
+            q.addCriteria(filter);
         }
 
-        List<Service> services = mongoTemplate.find(q, Service.class);
+        List<Service> services = mongo.find(q, Service.class);
 
-        return services.stream().map(s -> {
-            List<Review> reviews = reviewRepo.findByServiceId(s.getId());
-            double avg = 0.0;
-            int count = reviews.size();
-            if (count > 0) {
-                avg = reviews.stream().mapToInt(Review::getRating).average().orElse(0);
-            }
-            Map<String, Object> m = new LinkedHashMap<>();
-            m.put("id", s.getId());
-            m.put("provider_id", s.getProviderId());
-            m.put("provider_name", s.getProviderName());
-            m.put("name", s.getName());
-            m.put("description", s.getDescription());
-            m.put("category", s.getCategory());
-            m.put("price", s.getPrice());
-            m.put("location", s.getLocation());
-            m.put("duration", s.getDuration());
-            m.put("image_url", s.getImageUrl());
-            m.put("created_at", s.getCreatedAt());
-            m.put("average_rating", count == 0 ? 0 : Math.round(avg * 10.0) / 10.0);
-            m.put("review_count", count);
-            return m;
-        }).collect(Collectors.toList());
+        return services.stream()
+                .map(s -> ServiceViews.summary(s, mongo.find(Query.query(Criteria.where("serviceId").is(s.getId())), Review.class)))
+                .collect(Collectors.toList());
+    }
+
+    @GetMapping("/services/facets")
+    public Map<String, Object> getServiceFacets(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String location,
+            @RequestParam(required = false) Double min_price,
+            @RequestParam(required = false) Double max_price
+    ) {
+        return catalogFacetService.facets(new CatalogFacetService.Key(category, location, min_price, max_price));
+    }
+
+    @GetMapping("/services/suggest")
+    public List<Map<String, Object>> suggestServices(
+            @RequestParam("q") String q,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        return suggestService.suggest(q, Math.max(1, Math.min(limit, SuggestIndex.MAX_LIMIT))).stream()
+                .map(s -> {
+                    Map<String, Object> m = new LinkedHashMap<>();
+                    m.put("type", s.type());
+                    m.put("text", s.text());
+                    m.put("service_id", s.serviceId());
+                    return m;
+                })
+                .collect(Collectors.toList());
+    }
+
+    @GetMapping("/services/search")
+    public Map<String, Object> searchServices(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String location,
+            @RequestParam(required = false) Double min_price,
+            @RequestParam(required = false) Double max_price,
+            @RequestParam(defaultValue = "relevance") String sort,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String cursor
+    ) {
+        CatalogSearchService.Page page = catalogSearchService.search(new CatalogSearchService.SearchQuery(
+                q, category, location, min_price, max_price, CatalogSearchService.SortOrder.parse(sort), limit, cursor));
+
+        Map<String, Object> res = new LinkedHashMap<>();
+        res.put("items", page.items());
+        res.put("next_cursor", page.nextCursor());
+        return res;
     }
 
     @GetMapping("/services/{service_id}")
     public Map<String, Object> getService(@PathVariable("service_id") String serviceId) {
-        Service service = serviceRepo.findById(serviceId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Service not found"));
+        Service service = catalogMongoTemplate.findOne(Query.query(Criteria.where("id").is(serviceId)), Service.class);
+        if (service == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Service not found");
+        }
 
-        List<Review> reviews = reviewRepo.findByServiceIdOrderByCreatedAtDesc(serviceId);
+        List<Review> reviews = findServiceReviews(serviceId);
         double avg = 0.0;
         int count = reviews.size();
         if (count > 0) {
@@ -210,9 +329,38 @@ public class ApiController {
         res.put("reviews", reviews);
         res.put("average_rating", count == 0 ? 0 : Math.round(avg * 10.0) / 10.0);
         res.put("review_count", count);
+        res.put("also_booked", alsoBooked(serviceId));
         return res;
     }
 
+    private List<Map<String, Object>> alsoBooked(String serviceId) {
+        List<CoBookingIndex.Recommendation> recs = recommendations.recommend(serviceId);
+        if (recs.isEmpty()) {
+            return List.of();
+        }
+        Query q = Query.query(Criteria.where("id").in(recs.stream().map(CoBookingIndex.Recommendation::serviceId).toList()));
+        q.fields().include("id", "name", "category", "price", "imageUrl");
+        Map<String, Service> byId = catalogMongoTemplate.find(q, Service.class).stream()
+                .collect(Collectors.toMap(Service::getId, s -> s));
+
+        List<Map<String, Object>> out = new ArrayList<>(recs.size());
+        for (CoBookingIndex.Recommendation r : recs) {
+            Service s = byId.get(r.serviceId());
+            if (s == null) {
+                continue; // deleted since it was booked
+            }
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("service_id", s.getId());
+            m.put("name", s.getName());
+            m.put("category", s.getCategory());
+            m.put("price", s.getPrice());
+            m.put("image_url", s.getImageUrl());
+            m.put("co_bookings", r.count());
+            out.add(m);
+        }
+        return out;
+    }
+
     @GetMapping("/services/provider/my-services")
     public List<Map<String, Object>> getMyServices(
             @RequestHeader("Authorization") String authHeader
@@ -223,29 +371,9 @@ public class ApiController {
         }
 
         List<Service> services = serviceRepo.findByProviderId(current.getId());
-        return services.stream().map(s -> {
-            List<Review> reviews = reviewRepo.findByServiceId(s.getId());
-            double avg = 0.0;
-            int count = reviews.size();
-            if (count > 0) {
-                avg = reviews.stream().mapToInt(Review::getRating).average().orElse(0);
-            }
-            Map<String, Object> m = new LinkedHashMap<>();
-            m.put("id", s.getId());
-            m.put("provider_id", s.getProviderId());
-            m.put("provider_name", s.getProviderName());
-            m.put("name", s.getName());
-            m.put("description", s.getDescription());
-            m.put("category", s.getCategory());
-            m.put("price", s.getPrice());
-            m.put("location", s.getLocation());
-            m.put("duration", s.getDuration());
-            m.put("image_url", s.getImageUrl());
-            m.put("created_at", s.getCreatedAt());
-            m.put("average_rating", count == 0 ? 0 : Math.round(avg * 10.0) / 10.0);
-            m.put("review_count", count);
-            return m;
-        }).collect(Collectors.toList());
+        return services.stream()
+                .map(s -> ServiceViews.summary(s, reviewRepo.findByServiceId(s.getId())))
+                .collect(Collectors.toList());
     }
 
     @PutMapping("/services/{service_id}")
@@ -274,7 +402,9 @@ public class ApiController {
         if (body.getDuration() != null) service.setDuration(body.getDuration());
         if (body.getImageUrl() != null) service.setImageUrl(body.getImageUrl());
 
-        return serviceRepo.save(service);
+        Service saved = serviceRepo.save(service);
+        eventPublisher.publishEvent(new CatalogChangedEvent(saved.getId()));
+        return saved;
     }
 
     @DeleteMapping("/services/{service_id}")
@@ -295,24 +425,37 @@ public class ApiController {
         }
 
         serviceRepo.delete(service);
+        catalogStats.remove(service.getId());
+        eventPublisher.publishEvent(new CatalogChangedEvent(service.getId()));
         return Map.of("message", "Service deleted");
     }
 
     @PostMapping("/bookings")
     public Booking createBooking(
             @Valid @RequestBody BookingCreateDto body,
-            @RequestHeader("Authorization") String authHeader
+            @RequestHeader("Authorization") String authHeader,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey
     ) {
         User current = jwtService.getCurrentUser(authHeader);
         if (!"user".equals(current.getRole())) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Only users can create bookings");
         }
 
-        Service service = serviceRepo.findById(body.getServiceId())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Service not found"));
-
-        Booking booking = Booking.newBooking(current, service, body.getDate(), body.getTime());
-        return bookingRepo.save(booking);
+        String fingerprint = body.getServiceId() + "|" + body.getDate() + "|" + body.getTime();
+        return idempotencyService.execute("bookings", current.getId(), idempotencyKey, fingerprint,
+                new TypeReference<Booking>() {
+                }, () -> {
+                    Service service = serviceRepo.findById(body.getServiceId())
+                            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Service not found"));
+
+                    return providerLanes.run(service.getProviderId(), () -> {
+                        Booking booking = bookingRepo.save(Booking.newBooking(current, service, body.getDate(), body.getTime()));
+                        providerRollups.recordCreated(booking);
+                        catalogStats.recordBooking(booking.getServiceId());
+                        recommendations.recordBooking(booking);
+                        return booking;
+                    });
+                });
     }
 
     @GetMapping("/bookings/user/my-bookings")
@@ -347,9 +490,149 @@ public class ApiController {
     ) {
         User current = jwtService.getCurrentUser(authHeader);
 
-        Booking booking = bookingRepo.findById(bookingId)
+        Booking found = bookingRepo.findById(bookingId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Booking not found"));
 
+        checkStatusChange(current, found, body.getStatus());
+
+        // Re-read on the lane: the copy above may predate a payment or
+        // another status change that the save below would overwrite.
+        return providerLanes.run(found.getProviderId(), () -> {
+            Booking booking = bookingRepo.findById(bookingId)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Booking not found"));
+
+            String previous = booking.getStatus();
+            booking.setStatus(body.getStatus());
+            bookingRepo.save(booking);
+            providerRollups.recordStatusChanges(List.of(new ProviderRollupService.StatusChange(booking, previous)));
+
+            bookingSocketService.emitBookingStatusUpdate(booking.getId(), booking.getStatus());
+
+            return booking;
+        });
+    }
+
+    @PutMapping("/bookings/status:batch")
+    public Map<String, Object> updateBookingStatusBatch(
+            @Valid @RequestBody BookingStatusBatchUpdateDto body,
+            @RequestHeader("Authorization") String authHeader
+    ) {
+        User current = jwtService.getCurrentUser(authHeader);
+
+        List<String> ids = body.getUpdates().stream()
+                .map(BookingStatusBatchUpdateDto.Item::getBookingId)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<String, Booking> bookings = bookingRepo.findAllById(ids).stream()
+                .collect(Collectors.toMap(Booking::getId, b -> b));
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        List<BookingStatusBatchUpdateDto.Item> accepted = new ArrayList<>();
+        List<Map<String, Object>> acceptedResults = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (BookingStatusBatchUpdateDto.Item item : body.getUpdates()) {
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("booking_id", item.getBookingId());
+            r.put("status", item.getStatus());
+            results.add(r);
+            try {
+                Booking booking = bookings.get(item.getBookingId());
+                if (booking == null) {
+                    throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Booking not found");
+                }
+                if (!seen.add(item.getBookingId())) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Duplicate booking in batch");
+                }
+                checkStatusChange(current, booking, item.getStatus());
+                accepted.add(item);
+                acceptedResults.add(r);
+            } catch (ResponseStatusException e) {
+                r.put("ok", false);
+                r.put("code", e.getStatusCode().value());
+                r.put("error", e.getReason());
+            }
+        }
+
+        // Each provider's share of the batch is written on that provider's lane.
+        Map<String, List<Integer>> byProvider = new LinkedHashMap<>();
+        for (int i = 0; i < accepted.size(); i++) {
+            byProvider.computeIfAbsent(bookings.get(accepted.get(i).getBookingId()).getProviderId(), k -> new ArrayList<>())
+                    .add(i);
+        }
+        Set<Integer> failedWrites = new HashSet<>();
+        byProvider.forEach((providerId, indexes) -> failedWrites.addAll(
+                providerLanes.run(providerId, () -> applyStatusBatch(accepted, indexes))));
+
+        for (int i = 0; i < accepted.size(); i++) {
+            Map<String, Object> r = acceptedResults.get(i);
+            if (failedWrites.contains(i)) {
+                r.put("ok", false);
+                r.put("code", HttpStatus.INTERNAL_SERVER_ERROR.value());
+                r.put("error", "Write failed");
+            } else {
+                r.put("ok", true);
+            }
+        }
+
+        int updated = accepted.size() - failedWrites.size();
+        Map<String, Object> res = new LinkedHashMap<>();
+        res.put("updated", updated);
+        res.put("failed", results.size() - updated);
+        res.put("results", results);
+        return res;
+    }
+
+    /**
+     * Applies {@code accepted[indexes]}, all for one provider, and returns the
+     * indexes whose write failed. Runs on that provider's lane.
+     */
+    private Set<Integer> applyStatusBatch(List<BookingStatusBatchUpdateDto.Item> accepted, List<Integer> indexes) {
+        List<String> ids = indexes.stream().map(i -> accepted.get(i).getBookingId()).collect(Collectors.toList());
+        Map<String, Booking> bookings = bookingRepo.findAllById(ids).stream()
+                .collect(Collectors.toMap(Booking::getId, b -> b));
+
+        // Whole documents, upserted, like save() in the single update: an
+        // archived booking gets its hot copy back with the new status.
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Booking.class);
+        List<Integer> written = new ArrayList<>();
+        List<String> previous = new ArrayList<>();
+        for (int i : indexes) {
+            Booking booking = bookings.get(accepted.get(i).getBookingId());
+            if (booking == null) {
+                continue;
+            }
+            previous.add(booking.getStatus());
+            booking.setStatus(accepted.get(i).getStatus());
+            ops.replaceOne(Query.query(Criteria.where("id").is(booking.getId())), booking,
+                    FindAndReplaceOptions.options().upsert());
+            written.add(i);
+        }
+        Set<Integer> failed = new HashSet<>();
+        if (!written.isEmpty()) {
+            try {
+                ops.execute();
+            } catch (BulkOperationException e) {
+                e.getErrors().forEach(err -> failed.add(written.get(err.getIndex())));
+            }
+        }
+
+        List<Map<String, String>> notifications = new ArrayList<>();
+        List<ProviderRollupService.StatusChange> changes = new ArrayList<>();
+        for (int n = 0; n < written.size(); n++) {
+            int i = written.get(n);
+            if (failed.contains(i)) {
+                continue;
+            }
+            Booking booking = bookings.get(accepted.get(i).getBookingId());
+            changes.add(new ProviderRollupService.StatusChange(booking, previous.get(n)));
+            notifications.add(BookingSocketService.statusPayload(booking.getId(), booking.getStatus()));
+        }
+        providerRollups.recordStatusChanges(changes);
+        bookingSocketService.emitBookingStatusUpdates(notifications);
+        return failed;
+    }
+
+    private void checkStatusChange(User current, Booking booking, String status) {
         if ("provider".equals(current.getRole())) {
             if (!booking.getProviderId().equals(current.getId())) {
                 throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Not authorized");
@@ -358,19 +641,12 @@ public class ApiController {
             if (!booking.getUserId().equals(current.getId())) {
                 throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Not authorized");
             }
-            if (!"cancelled".equals(body.getStatus())) {
+            if (!"cancelled".equals(status)) {
                 throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Users can only cancel bookings");
             }
         } else {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Not authorized");
         }
-
-        booking.setStatus(body.getStatus());
-        bookingRepo.save(booking);
-
-        bookingSocketService.emitBookingStatusUpdate(booking.getId(), booking.getStatus());
-
-        return booking;
     }
 
     @GetMapping("/bookings/{booking_id}")
@@ -424,22 +700,37 @@ public class ApiController {
                 body.getRating(),
                 body.getComment()
         );
-        return reviewRepo.save(review);
+        Review saved = reviewRepo.save(review);
+        catalogStats.recordReview(saved.getServiceId(), saved.getRating());
+        eventPublisher.publishEvent(new CatalogChangedEvent(saved.getServiceId()));
+        return saved;
     }
 
     @GetMapping("/reviews/service/{service_id}")
     public List<Review> getServiceReviews(@PathVariable("service_id") String serviceId) {
-        return reviewRepo.findByServiceIdOrderByCreatedAtDesc(serviceId);
+        return findServiceReviews(serviceId);
+    }
+
+    private List<Review> findServiceReviews(String serviceId) {
+        Query q = Query.query(Criteria.where("serviceId").is(serviceId))
+                .with(Sort.by(Sort.Direction.DESC, "createdAt"));
+        return catalogMongoTemplate.find(q, Review.class);
     }
 
     @PostMapping("/payments/create-checkout")
     public Map<String, String> createCheckout(
             @RequestParam("booking_id") String bookingId,
             @RequestParam("origin_url") String originUrl,
-            @RequestHeader("Authorization") String authHeader
+            @RequestHeader("Authorization") String authHeader,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey
     ) {
         User current = jwtService.getCurrentUser(authHeader);
+        return idempotencyService.execute("checkout", current.getId(), idempotencyKey, bookingId + "|" + originUrl,
+                new TypeReference<Map<String, String>>() {
+                }, () -> checkout(current, bookingId, originUrl));
+    }
 
+    private Map<String, String> checkout(User current, String bookingId, String originUrl) {
         Booking booking = bookingRepo.findById(bookingId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Booking not found"));
 
@@ -478,7 +769,7 @@ public class ApiController {
                     .putMetadata("user_id", current.getId())
                     .build();
 
-            Session session = Session.create(params);
+            Session session = stripeGateway.createSession(params);
 
             PaymentTransaction tx = PaymentTransaction.pending(
                     session.getId(),
@@ -516,20 +807,15 @@ public class ApiController {
         }
 
         try {
-            Session session = Session.retrieve(sessionId);
+            Session session = stripeGateway.retrieveSession(sessionId);
 
             if ("complete".equalsIgnoreCase(session.getStatus())
                     && "paid".equalsIgnoreCase(session.getPaymentStatus())
                     && !"paid".equalsIgnoreCase(tx.getPaymentStatus())) {
 
-                tx.setPaymentStatus("paid");
-                paymentRepo.save(tx);
-
-                Booking booking = bookingRepo.findById(tx.getBookingId())
-                        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Booking not found"));
+                markTransactionPaid(sessionId);
 
-                booking.setPaymentStatus("paid");
-                bookingRepo.save(booking);
+                paymentReconciler.markBookingsPaid(List.of(tx.getBookingId()));
             }
 
             Map<String, Object> res = new LinkedHashMap<>();
@@ -566,15 +852,9 @@ public class ApiController {
                             .orElse(null);
 
                     if (tx != null) {
-                        tx.setPaymentStatus("paid");
-                        paymentRepo.save(tx);
-
-                        Booking booking = bookingRepo.findById(tx.getBookingId())
-                                .orElse(null);
-                        if (booking != null) {
-                            booking.setPaymentStatus("paid");
-                            bookingRepo.save(booking);
-                        }
+                        markTransactionPaid(sessionId);
+
+                        paymentReconciler.markBookingsPaid(List.of(tx.getBookingId()));
                     }
                 }
             }
@@ -585,6 +865,106 @@ public class ApiController {
         }
     }
 
+    /**
+     * Marks the transaction paid if it is still pending or was given up on by
+     * the expiry sweep or the reconciler; Stripe retries webhooks for longer
+     * than a transaction stays pending. Dropping {@code expireAt} keeps the
+     * TTL index from deleting it.
+     */
+    private void markTransactionPaid(String sessionId) {
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("sessionId").is(sessionId).and("paymentStatus").in("pending", "expired")),
+                Update.update("paymentStatus", "paid").unset("expireAt"),
+                PaymentTransaction.class
+        );
+    }
+
+    @GetMapping("/providers/me/analytics")
+    public Map<String, Object> getProviderAnalytics(
+            @RequestParam("from") String from,
+            @RequestParam("to") String to,
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestHeader("Authorization") String authHeader
+    ) {
+        User current = jwtService.getCurrentUser(authHeader);
+        if (!"provider".equals(current.getRole())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Only providers can access this");
+        }
+
+        ProviderRollupService.Granularity g;
+        LocalDate fromDate;
+        LocalDate toDate;
+        try {
+            g = ProviderRollupService.Granularity.parse(granularity);
+            fromDate = LocalDate.parse(from);
+            toDate = LocalDate.parse(to);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid from, to or granularity");
+        }
+        if (toDate.isBefore(fromDate)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'to' must not be before 'from'");
+        }
+        if (g == ProviderRollupService.Granularity.DAY && ChronoUnit.DAYS.between(fromDate, toDate) > 366) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Daily ranges are limited to one year");
+        }
+
+        Instant fromInstant = fromDate.atStartOfDay(ZoneOffset.UTC).toInstant();
+        Instant toInstant = toDate.atStartOfDay(ZoneOffset.UTC).toInstant();
+        List<ProviderRollup> rollups = providerRollups.find(
+                current.getId(), g, g.periodOf(fromInstant), g.periodOf(toInstant));
+
+        List<Map<String, Object>> series = new ArrayList<>();
+        Map<String, Map<String, Object>> byService = new LinkedHashMap<>();
+        Map<String, Object> totals = rollupView(null);
+        for (ProviderRollup r : rollups) {
+            if (ProviderRollup.ALL_SERVICES.equals(r.getServiceId())) {
+                Map<String, Object> point = rollupView(r.getPeriod());
+                addRollup(point, r);
+                series.add(point);
+                addRollup(totals, r);
+            } else {
+                Map<String, Object> svc = byService.computeIfAbsent(r.getServiceId(), id -> {
+                    Map<String, Object> m = rollupView(null);
+                    m.put("service_id", id);
+                    return m;
+                });
+                addRollup(svc, r);
+            }
+        }
+
+        Map<String, Object> res = new LinkedHashMap<>();
+        res.put("from", from);
+        res.put("to", to);
+        res.put("granularity", g.value());
+        res.put("totals", totals);
+        res.put("series", series);
+        res.put("services", byService.values().stream()
+                .sorted(Comparator.comparingDouble((Map<String, Object> m) -> (double) m.get("paid_amount")).reversed())
+                .collect(Collectors.toList()));
+        return res;
+    }
+
+    private static Map<String, Object> rollupView(String period) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        if (period != null) {
+            m.put("period", period);
+        }
+        m.put("bookings", 0L);
+        m.put("by_status", new TreeMap<String, Long>());
+        m.put("paid_count", 0L);
+        m.put("paid_amount", 0.0);
+        return m;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void addRollup(Map<String, Object> view, ProviderRollup r) {
+        view.merge("bookings", r.getBookings(), (a, b) -> (long) a + (long) b);
+        Map<String, Long> byStatus = (Map<String, Long>) view.get("by_status");
+        r.getStatusCounts().forEach((status, n) -> byStatus.merge(status, n, Long::sum));
+        view.merge("paid_count", r.getPaidCount(), (a, b) -> (long) a + (long) b);
+        view.merge("paid_amount", r.getPaidAmount(), (a, b) -> Math.round(((double) a + (double) b) * 100.0) / 100.0);
+    }
+
     @GetMapping("/admin/stats")
     public Map<String, Object> getAdminStats(
             @RequestHeader("Authorization") String authHeader
@@ -599,13 +979,9 @@ public class ApiController {
         long totalServices = serviceRepo.count();
         long totalBookings = bookingRepo.count();
 
-        List<Booking> bookings = bookingRepo.findAll();
-        Map<String, Long> counts = bookings.stream()
-                .collect(Collectors.groupingBy(Booking::getServiceId, Collectors.counting()));
+        Map<String, Long> counts = bookingRepo.countByServiceId();
 
-        List<Map<String, Object>> topServices = counts.entrySet().stream()
-                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-                .limit(5)
+        List<Map<String, Object>> topServices = BookingStats.top(counts, 5).stream()
                 .map(e -> {
                     Map<String, Object> m = new LinkedHashMap<>();
                     m.put("_id", e.getKey());
@@ -624,6 +1000,64 @@ public class ApiController {
         return res;
     }
 
+    @PostMapping("/admin/rollups/rebuild")
+    public ResponseEntity<Map<String, String>> rebuildRollups(
+            @RequestHeader("Authorization") String authHeader
+    ) {
+        User current = jwtService.getCurrentUser(authHeader);
+        if (!"admin".equals(current.getRole())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Admin only");
+        }
+
+        if (!providerRollups.rebuild()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Rebuild already running");
+        }
+        return ResponseEntity.accepted().body(Map.of("status", "rebuilding"));
+    }
+
+    @PostMapping("/admin/payments/reconcile")
+    public ResponseEntity<Map<String, String>> reconcilePayments(
+            @RequestHeader("Authorization") String authHeader
+    ) {
+        User current = jwtService.getCurrentUser(authHeader);
+        if (!"admin".equals(current.getRole())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Admin only");
+        }
+
+        if (!paymentReconciler.reconcile()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Reconciliation already running");
+        }
+        return ResponseEntity.accepted().body(Map.of("status", "reconciling"));
+    }
+
+    @GetMapping("/admin/payments/reconciliation")
+    public Map<String, Object> getPaymentReconciliation(
+            @RequestHeader("Authorization") String authHeader
+    ) {
+        User current = jwtService.getCurrentUser(authHeader);
+        if (!"admin".equals(current.getRole())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Admin only");
+        }
+
+        Map<String, Object> res = new LinkedHashMap<>();
+        res.put("running", paymentReconciler.isRunning());
+        res.put("last_run", paymentReconciler.lastReport());
+        return res;
+    }
+
+    @GetMapping("/admin/slow-queries")
+    public List<Map<String, Object>> getSlowQueries(
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestHeader("Authorization") String authHeader
+    ) {
+        User current = jwtService.getCurrentUser(authHeader);
+        if (!"admin".equals(current.getRole())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Admin only");
+        }
+
+        return mongoQueryProfiler.topSlowShapes(limit);
+    }
+
     @GetMapping("/admin/users")
     public List<User> getAllUsers(@RequestHeader("Authorization") String authHeader) {
         User current = jwtService.getCurrentUser(authHeader);
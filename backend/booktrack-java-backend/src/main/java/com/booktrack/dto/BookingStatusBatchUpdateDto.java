@@ -0,0 +1,25 @@
+package com.booktrack.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BookingStatusBatchUpdateDto {
+    @NotEmpty
+    @Size(max = 500)
+    @Valid
+    private List<Item> updates;
+
+    @Data
+    public static class Item {
+        @NotBlank
+        private String bookingId;
+        @NotBlank
+        private String status;
+    }
+}
@@ -0,0 +1,4 @@
+package com.booktrack.event;
+
+public record CatalogChangedEvent(String serviceId) {
+}
@@ -0,0 +1,91 @@
+package com.booktrack.filter;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads a (small) request body up front so a filter can inspect it while the
+ * controller still sees the full body. A body over the limit is not cut short
+ * (that would hand the controller broken JSON): {@link #tooLarge()} reports it
+ * and the filter rejects the request instead.
+ */
+class CachedBodyRequest extends HttpServletRequestWrapper {
+
+    private final byte[] body;
+    private final boolean tooLarge;
+
+    CachedBodyRequest(HttpServletRequest request, int maxBytes) throws IOException {
+        super(request);
+        if (request.getContentLengthLong() > maxBytes) {
+            this.body = new byte[0];
+            this.tooLarge = true;
+        } else {
+            byte[] read = request.getInputStream().readNBytes(maxBytes + 1);
+            this.tooLarge = read.length > maxBytes;
+            this.body = tooLarge ? new byte[0] : read;
+        }
+    }
+
+    byte[] body() {
+        return body;
+    }
+
+    boolean tooLarge() {
+        return tooLarge;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        ByteArrayInputStream in = new ByteArrayInputStream(body);
+        return new ServletInputStream() {
+            @Override
+            public boolean isFinished() {
+                return in.available() == 0;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            // The body is already in memory and always ready: hand it over at
+            // once, then signal the end.
+            @Override
+            public void setReadListener(ReadListener listener) {
+                try {
+                    if (!isFinished()) {
+                        listener.onDataAvailable();
+                    }
+                    if (isFinished()) {
+                        listener.onAllDataRead();
+                    }
+                } catch (IOException e) {
+                    listener.onError(e);
+                }
+            }
+
+            @Override
+            public int read() {
+                return in.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                return in.read(b, off, len);
+            }
+        };
+    }
+
+    @Override
+    public BufferedReader getReader() {
+        return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+    }
+}
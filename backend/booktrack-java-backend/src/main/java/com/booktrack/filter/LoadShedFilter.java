@@ -0,0 +1,109 @@
+package com.booktrack.filter;
+
+import com.booktrack.service.ConcurrencyLimiter;
+import com.booktrack.service.ConcurrencyLimiter.Priority;
+import com.booktrack.service.JwtService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Admits requests to {@link com.booktrack.controller.ApiController} through
+ * the {@link ConcurrencyLimiter}, classifying each one: Stripe webhooks and
+ * payment calls first, then booking mutations, then requests with a valid
+ * token, then everything else, i.e. anonymous catalog browsing, sign-in and
+ * registration. Shed requests get a 503 with {@code Retry-After}.
+ * Only representative requests feed their latency back into the limit.
+ */
+public class LoadShedFilter extends OncePerRequestFilter {
+
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final ConcurrencyLimiter limiter;
+    private final JwtService jwtService;
+    private final ObjectMapper objectMapper;
+
+    public LoadShedFilter(ConcurrencyLimiter limiter, JwtService jwtService, ObjectMapper objectMapper) {
+        this.limiter = limiter;
+        this.jwtService = jwtService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain chain
+    ) throws ServletException, IOException {
+        Priority priority = classify(request);
+        int admittedAt = limiter.tryAcquire(priority);
+        if (admittedAt < 0) {
+            reject(response);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (representative(request, response)) {
+                limiter.release(priority, admittedAt, System.nanoTime() - start);
+            } else {
+                limiter.release(priority, admittedAt);
+            }
+        }
+    }
+
+    /**
+     * Whether the request's latency says something about congestion. Bulk
+     * imports stream for as long as the upload takes, and error responses
+     * (including 429s from the rate limiter further down the chain) return
+     * without doing the work, so neither is fed to the limiter.
+     */
+    private static boolean representative(HttpServletRequest request, HttpServletResponse response) {
+        return response.getStatus() < 400
+                && !request.getRequestURI().startsWith(request.getContextPath() + "/api/services/import");
+    }
+
+    Priority classify(HttpServletRequest request) {
+        String method = request.getMethod();
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+
+        if (path.startsWith("/api/webhook/") || path.startsWith("/api/payments/")) {
+            return Priority.PAYMENT;
+        }
+        if (path.startsWith("/api/bookings") && !"GET".equals(method) && !"HEAD".equals(method)) {
+            return Priority.BOOKING;
+        }
+        if ("/api/auth/login".equals(path) || "/api/auth/register".equals(path)) {
+            // Unauthenticated and BCrypt-heavy whatever headers they carry; a
+            // credential-stuffing flood must not outrank catalog traffic.
+            return Priority.PUBLIC;
+        }
+        // Verified rather than merely present, so that a flood can't claim a
+        // higher class by sending any Authorization header. The outcome stays
+        // on the request for the rate limiter and the controller.
+        return jwtService.subjectOf(request) != null ? Priority.AUTHENTICATED : Priority.PUBLIC;
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        body.put("error", HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase());
+        body.put("detail", "Server is overloaded, retry in " + RETRY_AFTER_SECONDS + "s");
+
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+}
@@ -0,0 +1,154 @@
+package com.booktrack.filter;
+
+import com.booktrack.service.JwtService;
+import com.booktrack.service.RateLimiter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies per-route rate limits ahead of {@link com.booktrack.controller.ApiController}:
+ * login by client IP and by email, registration by client IP, and every other
+ * write by authenticated user (falling back to IP). Rejected requests get a
+ * 429 with {@code Retry-After}.
+ * <p>
+ * The client IP is {@code getRemoteAddr()}, which is only the real client
+ * behind an ingress or reverse proxy because of
+ * {@code server.forward-headers-strategy=native}: Tomcat then takes it from
+ * {@code X-Forwarded-For}, but only when the connection comes from a trusted
+ * proxy ({@code server.tomcat.remoteip.internal-proxies}, private and
+ * loopback addresses by default). Deployments whose proxies sit outside those
+ * ranges must list them there; otherwise every client shares the proxy's
+ * login and registration buckets.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final int MAX_AUTH_BODY_BYTES = 16 * 1024;
+
+    private final RateLimiter limiter;
+    private final JwtService jwtService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final RateLimiter.Policy loginPerIp;
+    private final RateLimiter.Policy loginPerEmail;
+    private final RateLimiter.Policy registerPerIp;
+    private final RateLimiter.Policy writePerUser;
+
+    public RateLimitFilter(
+            RateLimiter limiter,
+            JwtService jwtService,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            String loginPerIp,
+            String loginPerEmail,
+            String registerPerIp,
+            String writePerUser
+    ) {
+        this.limiter = limiter;
+        this.jwtService = jwtService;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.loginPerIp = RateLimiter.Policy.parse("login-ip", loginPerIp);
+        this.loginPerEmail = RateLimiter.Policy.parse("login-email", loginPerEmail);
+        this.registerPerIp = RateLimiter.Policy.parse("register-ip", registerPerIp);
+        this.writePerUser = RateLimiter.Policy.parse("write-user", writePerUser);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain chain
+    ) throws ServletException, IOException {
+        String method = request.getMethod();
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String ip = request.getRemoteAddr();
+
+        if ("POST".equals(method) && "/api/auth/login".equals(path)) {
+            CachedBodyRequest cached = new CachedBodyRequest(request, MAX_AUTH_BODY_BYTES);
+            if (cached.tooLarge()) {
+                writeError(response, HttpStatus.PAYLOAD_TOO_LARGE,
+                        "Request body exceeds " + MAX_AUTH_BODY_BYTES / 1024 + " KiB");
+                return;
+            }
+            if (reject(response, loginPerIp, ip)) {
+                return;
+            }
+            String email = emailOf(cached.body());
+            if (email != null && reject(response, loginPerEmail, email)) {
+                return;
+            }
+            chain.doFilter(cached, response);
+            return;
+        }
+
+        if ("POST".equals(method) && "/api/auth/register".equals(path)) {
+            if (reject(response, registerPerIp, ip)) {
+                return;
+            }
+        } else if (isWrite(method) && path.startsWith("/api/") && !path.startsWith("/api/webhook/")) {
+            String userId = jwtService.subjectOf(request);
+            if (reject(response, writePerUser, userId != null ? "user:" + userId : "ip:" + ip)) {
+                return;
+            }
+        }
+
+        chain.doFilter(request, response);
+    }
+
+    private boolean reject(HttpServletResponse response, RateLimiter.Policy policy, String key) throws IOException {
+        long waitNanos = limiter.tryAcquire(policy, key);
+        if (waitNanos == 0) {
+            return false;
+        }
+
+        Counter.builder("ratelimit.rejections")
+                .tag("policy", policy.name())
+                .register(meterRegistry)
+                .increment();
+
+        long retryAfter = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+        writeError(response, HttpStatus.TOO_MANY_REQUESTS, "Rate limit exceeded, retry in " + retryAfter + "s");
+        return true;
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String detail) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", status.value());
+        body.put("error", status.getReasonPhrase());
+        body.put("detail", detail);
+
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    private String emailOf(byte[] body) {
+        try {
+            JsonNode email = objectMapper.readTree(body).path("email");
+            return email.isTextual() ? email.asText().trim().toLowerCase(Locale.ROOT) : null;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static boolean isWrite(String method) {
+        return "POST".equals(method) || "PUT".equals(method) || "DELETE".equals(method) || "PATCH".equals(method);
+    }
+}
@@ -0,0 +1,69 @@
+package com.booktrack.filter;
+
+import com.booktrack.service.Tracer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Opens the {@link Tracer} server span of each API request, continuing the
+ * caller's W3C {@code traceparent} and echoing the request's own back, and
+ * puts the trace id in the logging MDC. Runs ahead of the other filters so
+ * that time spent being shed or rate limited is part of the span. Spans are
+ * named after the matched route ({@code GET /api/services/{id}}), not the
+ * raw path, so that they aggregate per endpoint.
+ */
+public class TracingFilter extends OncePerRequestFilter {
+
+    private static final String TRACEPARENT = "traceparent";
+    private static final String MDC_TRACE_ID = "traceId";
+
+    private final Tracer tracer;
+
+    public TracingFilter(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain chain
+    ) throws ServletException, IOException {
+        String method = request.getMethod();
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        Tracer.Span span = tracer.startRequest(method + " " + path, path, request.getHeader(TRACEPARENT));
+        if (!span.isRecording()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        span.tag("http.method", method).tag("http.target", path);
+        response.setHeader(TRACEPARENT, span.traceparent());
+        MDC.put(MDC_TRACE_ID, span.traceId());
+        try {
+            chain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            span.fail(e);
+            throw e;
+        } finally {
+            if (request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE) instanceof String route) {
+                span.rename(method + " " + route).tag("http.route", route);
+            }
+            int status = response.getStatus();
+            span.tag("http.status_code", status);
+            // 503s are load being shed on purpose; keeping all of them would
+            // flood the exporter exactly when the node is overloaded.
+            if (status >= 500 && status != HttpServletResponse.SC_SERVICE_UNAVAILABLE) {
+                span.fail("HTTP " + status);
+            }
+            MDC.remove(MDC_TRACE_ID);
+            span.close();
+        }
+    }
+}
@@ -2,17 +2,27 @@ package com.booktrack.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
 
 @Data
 @Document("bookings")
+@CompoundIndex(name = "userId_createdAt", def = "{'userId': 1, 'createdAt': -1}")
+@CompoundIndex(name = "providerId_createdAt", def = "{'providerId': 1, 'createdAt': -1}")
+@CompoundIndex(name = "status_paymentStatus_createdAt", def = "{'status': 1, 'paymentStatus': 1, 'createdAt': 1}")
 public class Booking {
 
     @Id
     private String mongoId;
 
+    @Indexed
     private String id;
     private String userId;
     private String userName;
@@ -22,10 +32,13 @@ public class Booking {
     private String providerName;
     private String date;
     private String time;
+    @Indexed
+    private Instant startsAt;
     private String status;
     private String paymentStatus;
     private double amount;
-    private String createdAt;
+    private Instant createdAt;
+    private Instant expiredAt;
 
     public static Booking newBooking(User user, Service service, String date, String time) {
         Booking b = new Booking();
@@ -38,10 +51,23 @@ public class Booking {
         b.providerName = service.getProviderName();
         b.date = date;
         b.time = time;
+        b.startsAt = startOf(date, time);
         b.status = "pending";
         b.paymentStatus = "pending";
         b.amount = service.getPrice();
-        b.createdAt = Instant.now().toString();
+        b.createdAt = Instant.now();
         return b;
     }
+
+    public static Instant startOf(String date, String time) {
+        if (date == null) {
+            return null;
+        }
+        try {
+            LocalTime t = time == null || time.isBlank() ? LocalTime.MIDNIGHT : LocalTime.parse(time.trim());
+            return LocalDate.parse(date.trim()).atTime(t).toInstant(ZoneOffset.UTC);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
 }
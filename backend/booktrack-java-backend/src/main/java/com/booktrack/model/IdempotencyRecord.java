@@ -0,0 +1,36 @@
+package com.booktrack.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@Document("idempotency_keys")
+public class IdempotencyRecord {
+
+    public static final String IN_PROGRESS = "in_progress";
+    public static final String COMPLETED = "completed";
+
+    @Id
+    private String id;
+
+    private String fingerprint;
+    private String state;
+    private String response;
+    /**
+     * The attempt currently holding an {@code in_progress} record, and until
+     * when; another request may take the record over once the lease lapses.
+     */
+    private String owner;
+    private Instant leaseUntil;
+    private Instant createdAt;
+    @Indexed(name = "expireAt_ttl", expireAfter = "0s")
+    private Instant expireAt;
+
+    public static String idOf(String scope, String userId, String key) {
+        return scope + "|" + userId + "|" + key;
+    }
+}
@@ -2,6 +2,8 @@ package com.booktrack.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
@@ -9,12 +11,15 @@ import java.util.Map;
 
 @Data
 @Document("payment_transactions")
+@CompoundIndex(name = "paymentStatus_createdAt", def = "{'paymentStatus': 1, 'createdAt': 1}")
 public class PaymentTransaction {
 
     @Id
     private String mongoId;
 
+    @Indexed
     private String id;
+    @Indexed
     private String sessionId;
     private String bookingId;
     private String userId;
@@ -22,7 +27,9 @@ public class PaymentTransaction {
     private String currency;
     private String paymentStatus;
     private Map<String, Object> metadata;
-    private String createdAt;
+    private Instant createdAt;
+    @Indexed(name = "expireAt_ttl", expireAfter = "0s")
+    private Instant expireAt;
 
     public static PaymentTransaction pending(
             String sessionId,
@@ -40,7 +47,7 @@ public class PaymentTransaction {
         t.currency = currency;
         t.paymentStatus = "pending";
         t.metadata = metadata;
-        t.createdAt = Instant.now().toString();
+        t.createdAt = Instant.now();
         return t;
     }
 }
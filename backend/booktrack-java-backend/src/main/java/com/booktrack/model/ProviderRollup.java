@@ -0,0 +1,34 @@
+package com.booktrack.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Document("provider_rollups")
+@CompoundIndex(name = "providerId_granularity_period", def = "{'providerId': 1, 'granularity': 1, 'period': 1}")
+public class ProviderRollup {
+
+    public static final String ALL_SERVICES = "*";
+
+    @Id
+    private String id;
+
+    private String providerId;
+    private String serviceId;
+    private String granularity;
+    private String period;
+    private long bookings;
+    private Map<String, Long> statusCounts = new HashMap<>();
+    private long paidCount;
+    private double paidAmount;
+    private long version;
+
+    public static String idOf(String providerId, String serviceId, String granularity, String period) {
+        return providerId + "|" + serviceId + "|" + granularity + "|" + period;
+    }
+}
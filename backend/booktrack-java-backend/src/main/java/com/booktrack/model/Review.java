@@ -2,17 +2,21 @@ package com.booktrack.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
 
 @Data
 @Document("reviews")
+@CompoundIndex(name = "serviceId_createdAt", def = "{'serviceId': 1, 'createdAt': -1}")
 public class Review {
 
     @Id
     private String mongoId;
 
+    @Indexed
     private String id;
     private String userId;
     private String userName;
@@ -20,7 +24,7 @@ public class Review {
     private String bookingId;
     private int rating;
     private String comment;
-    private String createdAt;
+    private Instant createdAt;
 
     public static Review newReview(User user, String serviceId, String bookingId, int rating, String comment) {
         Review r = new Review();
@@ -31,7 +35,7 @@ public class Review {
         r.bookingId = bookingId;
         r.rating = rating;
         r.comment = comment;
-        r.createdAt = Instant.now().toString();
+        r.createdAt = Instant.now();
         return r;
     }
 }
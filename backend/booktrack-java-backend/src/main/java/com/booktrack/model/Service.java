@@ -2,17 +2,22 @@ package com.booktrack.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
 
 @Data
 @Document("services")
+@CompoundIndex(name = "price_id", def = "{'price': 1, 'id': 1}")
+@CompoundIndex(name = "category_price_id", def = "{'category': 1, 'price': 1, 'id': 1}")
 public class Service {
 
     @Id
     private String mongoId;
 
+    @Indexed
     private String id;
     private String providerId;
     private String providerName;
@@ -23,7 +28,7 @@ public class Service {
     private String location;
     private int duration;
     private String imageUrl;
-    private String createdAt;
+    private Instant createdAt;
 
     public static Service newService(
             User provider,
@@ -46,7 +51,7 @@ public class Service {
         s.location = location;
         s.duration = duration;
         s.imageUrl = imageUrl;
-        s.createdAt = Instant.now().toString();
+        s.createdAt = Instant.now();
         return s;
     }
 }
@@ -2,6 +2,7 @@ package com.booktrack.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
@@ -13,14 +14,16 @@ public class User {
     @Id
     private String mongoId;
 
+    @Indexed
     private String id;
+    @Indexed
     private String email;
     private String name;
     private String role;
     private String phone;
     private boolean blocked = false;
     private String password;
-    private String createdAt;
+    private Instant createdAt;
 
     public static User newUser(String email, String name, String role, String phone, String hashedPassword) {
         User u = new User();
@@ -31,7 +34,7 @@ public class User {
         u.phone = phone;
         u.blocked = false;
         u.password = hashedPassword;
-        u.createdAt = Instant.now().toString();
+        u.createdAt = Instant.now();
         return u;
     }
 }
@@ -6,8 +6,10 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import java.util.List;
 import java.util.Optional;
 
-public interface BookingRepository extends MongoRepository<Booking, String> {
-    List<Booking> findByUserIdOrderByCreatedAtDesc(String userId);
-    List<Booking> findByProviderIdOrderByCreatedAtDesc(String providerId);
+public interface BookingRepository extends MongoRepository<Booking, String>, BookingRepositoryCustom {
+    @Override
     Optional<Booking> findById(String id);
+
+    @Override
+    List<Booking> findAllById(Iterable<String> ids);
 }
@@ -0,0 +1,32 @@
+package com.booktrack.repository;
+
+import com.booktrack.model.Booking;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Booking lookups that see both the hot {@code bookings} collection and
+ * {@code bookings_archive}. They override the same-named repository methods,
+ * so callers keep working unchanged after bookings are archived.
+ */
+public interface BookingRepositoryCustom {
+
+    String ARCHIVE_COLLECTION = "bookings_archive";
+
+    Optional<Booking> findById(String id);
+
+    List<Booking> findAllById(Iterable<String> ids);
+
+    List<Booking> findByUserIdOrderByCreatedAtDesc(String userId);
+
+    List<Booking> findByProviderIdOrderByCreatedAtDesc(String providerId);
+
+    long count();
+
+    /**
+     * Number of bookings per service id across both collections.
+     */
+    Map<String, Long> countByServiceId();
+}
@@ -0,0 +1,127 @@
+package com.booktrack.repository;
+
+import com.booktrack.model.Booking;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.GroupOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Reads the hot collection first and falls through to the archive. A booking
+ * present in both (updated after it was archived, until the next archiver
+ * run moves it again) is taken from the hot collection.
+ */
+public class BookingRepositoryCustomImpl implements BookingRepositoryCustom {
+
+    private static final Comparator<Booking> NEWEST_FIRST = Comparator.comparing(
+            Booking::getCreatedAt, Comparator.nullsLast(Comparator.<Instant>reverseOrder()));
+
+    private final MongoTemplate mongoTemplate;
+
+    public BookingRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Optional<Booking> findById(String id) {
+        Query q = Query.query(Criteria.where("id").is(id));
+        Booking hot = mongoTemplate.findOne(q, Booking.class);
+        return Optional.ofNullable(hot != null ? hot : mongoTemplate.findOne(q, Booking.class, ARCHIVE_COLLECTION));
+    }
+
+    @Override
+    public List<Booking> findAllById(Iterable<String> ids) {
+        Set<String> wanted = new LinkedHashSet<>();
+        ids.forEach(wanted::add);
+        List<Booking> found = mongoTemplate.find(Query.query(Criteria.where("id").in(wanted)), Booking.class);
+        if (found.size() == wanted.size()) {
+            return found;
+        }
+
+        found.forEach(b -> wanted.remove(b.getId()));
+        List<Booking> all = new ArrayList<>(found);
+        all.addAll(mongoTemplate.find(Query.query(Criteria.where("id").in(wanted)), Booking.class, ARCHIVE_COLLECTION));
+        return all;
+    }
+
+    @Override
+    public List<Booking> findByUserIdOrderByCreatedAtDesc(String userId) {
+        return history("userId", userId);
+    }
+
+    @Override
+    public List<Booking> findByProviderIdOrderByCreatedAtDesc(String providerId) {
+        return history("providerId", providerId);
+    }
+
+    @Override
+    public long count() {
+        long archivedOnly = 0;
+        for (Document d : mongoTemplate.aggregate(archivedOnly(Aggregation.count().as("count")),
+                ARCHIVE_COLLECTION, Document.class)) {
+            archivedOnly = ((Number) d.get("count")).longValue();
+        }
+        return mongoTemplate.count(new Query(), Booking.class) + archivedOnly;
+    }
+
+    @Override
+    public Map<String, Long> countByServiceId() {
+        GroupOperation byService = Aggregation.group("serviceId").count().as("count");
+        Map<String, Long> counts = new HashMap<>();
+        for (Document d : mongoTemplate.aggregate(Aggregation.newAggregation(byService), Booking.class, Document.class)) {
+            addCount(counts, d);
+        }
+        for (Document d : mongoTemplate.aggregate(archivedOnly(byService), ARCHIVE_COLLECTION, Document.class)) {
+            addCount(counts, d);
+        }
+        return counts;
+    }
+
+    /**
+     * Runs {@code then} over the archived bookings that have no copy in the
+     * hot collection, so that a booking present in both is counted once.
+     */
+    private Aggregation archivedOnly(AggregationOperation then) {
+        return Aggregation.newAggregation(
+                Aggregation.lookup(mongoTemplate.getCollectionName(Booking.class), "_id", "_id", "hot"),
+                Aggregation.match(Criteria.where("hot").size(0)),
+                then);
+    }
+
+    private static void addCount(Map<String, Long> counts, Document d) {
+        if (d.get("_id") instanceof String serviceId) {
+            counts.merge(serviceId, ((Number) d.get("count")).longValue(), Long::sum);
+        }
+    }
+
+    private List<Booking> history(String field, String value) {
+        Query q = Query.query(Criteria.where(field).is(value)).with(Sort.by(Sort.Direction.DESC, "createdAt"));
+        List<Booking> hot = mongoTemplate.find(q, Booking.class);
+        List<Booking> cold = mongoTemplate.find(q, Booking.class, ARCHIVE_COLLECTION);
+        if (cold.isEmpty()) {
+            return hot;
+        }
+
+        Set<String> ids = new HashSet<>();
+        hot.forEach(b -> ids.add(b.getId()));
+        List<Booking> all = new ArrayList<>(hot);
+        cold.stream().filter(b -> !ids.contains(b.getId())).forEach(all::add);
+        all.sort(NEWEST_FIRST);
+        return all;
+    }
+}
@@ -2,11 +2,13 @@ package com.booktrack.repository;
 
 import com.booktrack.model.Service;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
 import java.util.List;
 import java.util.Optional;
 
 public interface ServiceRepository extends MongoRepository<Service, String> {
     List<Service> findByProviderId(String providerId);
+    @Query("{ 'id': ?0 }")
     Optional<Service> findById(String id);
 }
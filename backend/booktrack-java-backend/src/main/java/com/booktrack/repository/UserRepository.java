@@ -2,11 +2,13 @@ package com.booktrack.repository;
 
 import com.booktrack.model.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
 import java.util.Optional;
 
 public interface UserRepository extends MongoRepository<User, String> {
     Optional<User> findByEmail(String email);
+    @Query("{ 'id': ?0 }")
     Optional<User> findById(String id);
     long countByRole(String role);
 }
@@ -0,0 +1,149 @@
+package com.booktrack.service;
+
+import com.booktrack.model.Booking;
+import com.booktrack.repository.BookingRepositoryCustom;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves bookings in a terminal status whose {@code createdAt} is older than
+ * {@code app.archive.bookings.horizon-days} from {@code bookings} to
+ * {@code bookings_archive}, keeping the hot collection and its indexes small.
+ * <p>
+ * Each batch is first upserted into the archive by {@code _id}, then deleted
+ * from the hot collection only if its status and payment status are still the
+ * ones that were copied, so an interrupted run or a concurrent update never
+ * loses a booking; at worst it is briefly in both places, and readers prefer
+ * the hot copy (see {@link BookingRepositoryCustom}).
+ */
+@org.springframework.stereotype.Service
+public class BookingArchiveService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingArchiveService.class);
+
+    public static final List<String> TERMINAL_STATUSES = List.of("completed", "cancelled", "rejected", "expired");
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final Duration horizon;
+    private final int batchSize;
+    private final long pauseMillis;
+    private final long intervalMinutes;
+    private final Counter archived;
+    private final ScheduledExecutorService archiver = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "booking-archiver");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public BookingArchiveService(
+            MongoTemplate mongoTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.archive.bookings.enabled:true}") boolean enabled,
+            @Value("${app.archive.bookings.horizon-days:365}") long horizonDays,
+            @Value("${app.archive.bookings.batch-size:500}") int batchSize,
+            @Value("${app.archive.bookings.pause-ms:50}") long pauseMillis,
+            @Value("${app.archive.bookings.interval-minutes:60}") long intervalMinutes
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.horizon = Duration.ofDays(horizonDays);
+        this.batchSize = batchSize;
+        this.pauseMillis = pauseMillis;
+        this.intervalMinutes = intervalMinutes;
+        this.archived = Counter.builder("bookings.archived")
+                .description("Bookings moved to the archive collection")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        IndexOperations indexes = mongoTemplate.indexOps(BookingRepositoryCustom.ARCHIVE_COLLECTION);
+        indexes.ensureIndex(new Index("id", Sort.Direction.ASC).named("id"));
+        indexes.ensureIndex(new Index("userId", Sort.Direction.ASC).on("createdAt", Sort.Direction.DESC).named("userId_createdAt"));
+        indexes.ensureIndex(new Index("providerId", Sort.Direction.ASC).on("createdAt", Sort.Direction.DESC).named("providerId_createdAt"));
+        if (enabled) {
+            archiver.scheduleWithFixedDelay(this::run, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    private void run() {
+        try {
+            long moved = archive(Instant.now().minus(horizon));
+            if (moved > 0) {
+                log.info("Archived {} bookings", moved);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn("Booking archive run failed; retrying next interval", e);
+        }
+    }
+
+    private long archive(Instant cutoff) throws InterruptedException {
+        Criteria old = Criteria.where("status").in(TERMINAL_STATUSES).and("createdAt").lt(Date.from(cutoff));
+        Object lastId = null;
+        long moved = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            Query q = Query.query(lastId == null ? old : new Criteria().andOperator(Criteria.where("_id").gt(lastId), old))
+                    .with(Sort.by("_id"))
+                    .limit(batchSize);
+            List<Document> batch = mongoTemplate.find(q, Document.class, "bookings");
+            if (batch.isEmpty()) {
+                return moved;
+            }
+
+            BulkOperations copy = mongoTemplate.bulkOps(
+                    BulkOperations.BulkMode.UNORDERED, BookingRepositoryCustom.ARCHIVE_COLLECTION);
+            BulkOperations delete = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Booking.class);
+            for (Document doc : batch) {
+                Query byId = Query.query(Criteria.where("_id").is(doc.get("_id")));
+                copy.replaceOne(byId, doc, FindAndReplaceOptions.options().upsert());
+                delete.remove(Query.query(Criteria.where("_id").is(doc.get("_id"))
+                        .and("status").is(doc.get("status"))
+                        .and("paymentStatus").is(doc.get("paymentStatus"))));
+            }
+            copy.execute();
+            int removed = delete.execute().getDeletedCount();
+            archived.increment(removed);
+            moved += removed;
+
+            lastId = batch.get(batch.size() - 1).get("_id");
+            if (batch.size() < batchSize) {
+                return moved;
+            }
+            if (pauseMillis > 0) {
+                TimeUnit.MILLISECONDS.sleep(pauseMillis);
+            }
+        }
+        return moved;
+    }
+
+    @Override
+    public void destroy() {
+        archiver.shutdownNow();
+    }
+}
@@ -1,24 +1,63 @@
 package com.booktrack.service;
 
 import com.corundumstudio.socketio.SocketIOServer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.Map;
 
 @Service
 public class BookingSocketService {
 
     private final SocketIOServer server;
+    private final Tracer tracer;
+    private final Counter statusUpdatesEmitted;
+    private final Counter batchUpdatesEmitted;
 
-    public BookingSocketService(SocketIOServer server) {
+    public BookingSocketService(SocketIOServer server, MeterRegistry meterRegistry, Tracer tracer) {
         this.server = server;
+        this.tracer = tracer;
+        Gauge.builder("socketio.clients.connected", server, s -> s.getAllClients().size())
+                .description("Currently connected Socket.IO clients")
+                .register(meterRegistry);
+        this.statusUpdatesEmitted = Counter.builder("socketio.events.emitted")
+                .description("Socket.IO events broadcast to clients")
+                .tag("event", "booking_status_update")
+                .register(meterRegistry);
+        this.batchUpdatesEmitted = Counter.builder("socketio.events.emitted")
+                .description("Socket.IO events broadcast to clients")
+                .tag("event", "booking_status_batch_update")
+                .register(meterRegistry);
     }
 
     public void emitBookingStatusUpdate(String bookingId, String status) {
-        Map<String, String> payload = Map.of(
+        try (Tracer.Span span = tracer.startSpan("socketio emit booking_status_update", Tracer.Kind.PRODUCER)) {
+            span.tag("messaging.system", "socketio").tag("messaging.destination", "booking_status_update");
+            server.getBroadcastOperations().sendEvent("booking_status_update", statusPayload(bookingId, status));
+        }
+        statusUpdatesEmitted.increment();
+    }
+
+    public void emitBookingStatusUpdates(List<Map<String, String>> updates) {
+        if (updates.isEmpty()) {
+            return;
+        }
+        try (Tracer.Span span = tracer.startSpan("socketio emit booking_status_batch_update", Tracer.Kind.PRODUCER)) {
+            span.tag("messaging.system", "socketio")
+                    .tag("messaging.destination", "booking_status_batch_update")
+                    .tag("messaging.batch.message_count", updates.size());
+            server.getBroadcastOperations().sendEvent("booking_status_batch_update", Map.of("updates", updates));
+        }
+        batchUpdatesEmitted.increment();
+    }
+
+    public static Map<String, String> statusPayload(String bookingId, String status) {
+        return Map.of(
                 "booking_id", bookingId,
                 "status", status
         );
-        server.getBroadcastOperations().sendEvent("booking_status_update", payload);
     }
 }
@@ -0,0 +1,25 @@
+package com.booktrack.service;
+
+import com.booktrack.model.Booking;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public final class BookingStats {
+
+    private BookingStats() {
+    }
+
+    public static Map<String, Long> countByService(List<Booking> bookings) {
+        return bookings.stream()
+                .collect(Collectors.groupingBy(Booking::getServiceId, Collectors.counting()));
+    }
+
+    public static List<Map.Entry<String, Long>> top(Map<String, Long> counts, int limit) {
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+}
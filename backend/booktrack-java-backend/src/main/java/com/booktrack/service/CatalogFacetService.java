@@ -0,0 +1,212 @@
+package com.booktrack.service;
+
+import com.booktrack.event.CatalogChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AccumulatorOperators;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Category counts, a price histogram and rating buckets for a catalog filter,
+ * computed with a single {@code $facet} aggregation. Facets are disjunctive:
+ * category counts ignore the category filter and the price facets ignore the
+ * price filter, so the UI can show the alternatives to the current choice.
+ * Results are kept in a small LRU per filter combination and dropped on any
+ * catalog change.
+ */
+@org.springframework.stereotype.Service
+public class CatalogFacetService {
+
+    private static final double[] RATING_BOUNDARIES = {1, 2, 3, 4, 5.01};
+
+    public record Key(String category, String location, Double minPrice, Double maxPrice) {
+    }
+
+    private record Entry(long generation, Map<String, Object> facets) {
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final double[] priceBoundaries;
+    private final int maxEntries;
+    private final AtomicLong generation = new AtomicLong();
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Counter hits;
+    private final Counter misses;
+
+    public CatalogFacetService(
+            MongoTemplate mongoTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.catalog.facets.price-boundaries:0,25,50,100,200,500,1000}") double[] priceBoundaries,
+            @Value("${app.catalog.facets.max-entries:1000}") int maxEntries
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.priceBoundaries = priceBoundaries.clone();
+        Arrays.sort(this.priceBoundaries);
+        this.maxEntries = maxEntries;
+        this.hits = Counter.builder("cache.gets")
+                .tag("cache", "catalog-facets")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("cache.gets")
+                .tag("cache", "catalog-facets")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    public Map<String, Object> facets(Key key) {
+        long current = generation.get();
+        synchronized (entries) {
+            Entry cached = entries.get(key);
+            if (cached != null && cached.generation() == current) {
+                hits.increment();
+                return cached.facets();
+            }
+        }
+
+        misses.increment();
+        Map<String, Object> facets = compute(key);
+        synchronized (entries) {
+            if (current == generation.get()) {
+                entries.put(key, new Entry(current, facets));
+                while (entries.size() > maxEntries) {
+                    entries.remove(entries.keySet().iterator().next());
+                }
+            }
+        }
+        return facets;
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        generation.incrementAndGet();
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private Map<String, Object> compute(Key key) {
+        Criteria byCategory = key.category() == null ? null : Criteria.where("category").is(key.category());
+        Criteria byPrice = CatalogSearchService.filter(null, null, key.minPrice(), key.maxPrice());
+        Criteria byBoth = CatalogSearchService.filter(key.category(), null, key.minPrice(), key.maxPrice());
+
+        List<AggregationOperation> pipeline = new ArrayList<>();
+        Criteria byLocation = CatalogSearchService.filter(null, key.location(), null, null);
+        if (byLocation != null) {
+            pipeline.add(Aggregation.match(byLocation));
+        }
+        pipeline.add(Aggregation.facet(stages(byPrice,
+                        Aggregation.group("category").count().as("count"),
+                        Aggregation.sort(Sort.by(Sort.Direction.DESC, "count").and(Sort.by("_id")))))
+                .as("categories")
+                .and(stages(byCategory,
+                        Aggregation.bucket("price")
+                                .withBoundaries(boxed(priceBoundaries))
+                                .withDefaultBucket("other")
+                                .andOutputCount().as("count")))
+                .as("price_histogram")
+                .and(stages(byCategory,
+                        Aggregation.group().min("price").as("min").max("price").as("max")))
+                .as("price_range")
+                .and(stages(byBoth,
+                        Aggregation.lookup("reviews", "id", "serviceId", "reviews"),
+                        Aggregation.project().and(AccumulatorOperators.Avg.avgOf("reviews.rating")).as("avg"),
+                        Aggregation.bucket(ConditionalOperators.ifNull("avg").then(0))
+                                .withBoundaries(boxed(RATING_BOUNDARIES))
+                                .withDefaultBucket("unrated")
+                                .andOutputCount().as("count")))
+                .as("ratings")
+                .and(stages(byBoth, Aggregation.count().as("total")))
+                .as("total"));
+
+        Document result = mongoTemplate.aggregate(Aggregation.newAggregation(pipeline), "services", Document.class)
+                .getUniqueMappedResult();
+        return view(result == null ? new Document() : result);
+    }
+
+    private Map<String, Object> view(Document result) {
+        List<Map<String, Object>> categories = new ArrayList<>();
+        for (Document d : result.getList("categories", Document.class, List.of())) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("category", d.get("_id"));
+            m.put("count", count(d));
+            categories.add(m);
+        }
+
+        List<Map<String, Object>> prices = new ArrayList<>();
+        for (Document d : result.getList("price_histogram", Document.class, List.of())) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            Object id = d.get("_id");
+            if (id instanceof Number lower) {
+                int i = Arrays.binarySearch(priceBoundaries, lower.doubleValue());
+                m.put("min", lower);
+                m.put("max", i >= 0 && i + 1 < priceBoundaries.length ? priceBoundaries[i + 1] : null);
+            } else {
+                m.put("min", priceBoundaries[priceBoundaries.length - 1]);
+                m.put("max", null);
+            }
+            m.put("count", count(d));
+            prices.add(m);
+        }
+
+        Map<String, Object> priceRange = new LinkedHashMap<>();
+        List<Document> range = result.getList("price_range", Document.class, List.of());
+        priceRange.put("min", range.isEmpty() ? null : range.get(0).get("min"));
+        priceRange.put("max", range.isEmpty() ? null : range.get(0).get("max"));
+
+        List<Map<String, Object>> ratings = new ArrayList<>();
+        for (Document d : result.getList("ratings", Document.class, List.of())) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            Object id = d.get("_id");
+            m.put("min_rating", id instanceof Number n ? n.intValue() : null);
+            m.put("count", count(d));
+            ratings.add(m);
+        }
+
+        List<Document> total = result.getList("total", Document.class, List.of());
+
+        Map<String, Object> res = new LinkedHashMap<>();
+        res.put("total", total.isEmpty() ? 0 : count(total.get(0), "total"));
+        res.put("categories", categories);
+        res.put("price_range", priceRange);
+        res.put("price_histogram", prices);
+        res.put("ratings", ratings);
+        return res;
+    }
+
+    private static AggregationOperation[] stages(Criteria match, AggregationOperation... rest) {
+        List<AggregationOperation> ops = new ArrayList<>(rest.length + 1);
+        if (match != null) {
+            ops.add(Aggregation.match(match));
+        }
+        ops.addAll(Arrays.asList(rest));
+        return ops.toArray(new AggregationOperation[0]);
+    }
+
+    private static Object[] boxed(double[] values) {
+        return Arrays.stream(values).boxed().toArray();
+    }
+
+    private static long count(Document d) {
+        return count(d, "count");
+    }
+
+    private static long count(Document d, String field) {
+        Object v = d.get(field);
+        return v instanceof Number n ? n.longValue() : 0;
+    }
+}
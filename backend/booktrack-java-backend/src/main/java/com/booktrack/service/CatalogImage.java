@@ -0,0 +1,240 @@
+package com.booktrack.service;
+
+import com.booktrack.model.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * A read-only, memory-mapped image of the {@code services} collection with
+ * each service's rating summary, in the order the catalog query returned
+ * them. Records are decoded straight from the mapping on each
+ * {@link #summaries} call, so opening an image costs one checksum pass and no
+ * heap beyond the mapping itself.
+ * <p>
+ * Layout (big-endian): magic {@code "CIM1"}, version, written-at millis,
+ * record count, CRC32 of the record section, the records, then a CRC32 of
+ * everything before it. Each record is its byte length followed by category,
+ * id, provider id, provider name, name, description, location, image url
+ * (int length + UTF-8, -1 for null), price, duration, created-at millis
+ * ({@link Long#MIN_VALUE} for null), rating sum and review count. Category
+ * comes first so filtered reads skip other records without decoding them.
+ */
+public final class CatalogImage {
+
+    private static final int MAGIC = 0x43494D31; // "CIM1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4 + 8;
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private final ByteBuffer buffer;
+    private final Instant writtenAt;
+    private final int count;
+    private final long contentChecksum;
+
+    private CatalogImage(ByteBuffer buffer, Instant writtenAt, int count, long contentChecksum) {
+        this.buffer = buffer;
+        this.writtenAt = writtenAt;
+        this.count = count;
+        this.contentChecksum = contentChecksum;
+    }
+
+    public Instant writtenAt() {
+        return writtenAt;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public long bytes() {
+        return buffer.capacity();
+    }
+
+    /**
+     * CRC32 of the records alone: equal for two images of the same catalog
+     * regardless of when they were written.
+     */
+    public long contentChecksum() {
+        return contentChecksum;
+    }
+
+    /**
+     * The same summaries {@code GET /api/services} builds from Mongo, for the
+     * whole catalog or one category.
+     */
+    public List<Map<String, Object>> summaries(String category) {
+        ByteBuffer in = buffer.duplicate();
+        in.position(HEADER_BYTES);
+        byte[] wanted = category == null ? null : category.getBytes(StandardCharsets.UTF_8);
+        List<Map<String, Object>> out = new ArrayList<>(category == null ? count : 16);
+        for (int i = 0; i < count; i++) {
+            int length = in.getInt();
+            int next = in.position() + length;
+            if (wanted == null || matches(in, wanted)) {
+                in.position(next - length);
+                Service s = new Service();
+                s.setCategory(string(in));
+                s.setId(string(in));
+                s.setProviderId(string(in));
+                s.setProviderName(string(in));
+                s.setName(string(in));
+                s.setDescription(string(in));
+                s.setLocation(string(in));
+                s.setImageUrl(string(in));
+                s.setPrice(in.getDouble());
+                s.setDuration(in.getInt());
+                long created = in.getLong();
+                s.setCreatedAt(created == NO_TIME ? null : Instant.ofEpochMilli(created));
+                CatalogStatsService.Stats stats = new CatalogStatsService.Stats(in.getLong(), in.getLong(), 0);
+                out.add(ServiceViews.summary(s, stats));
+            }
+            in.position(next);
+        }
+        return out;
+    }
+
+    private static boolean matches(ByteBuffer in, byte[] wanted) {
+        int length = in.getInt();
+        if (length != wanted.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (in.get() != wanted[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String string(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes an image of {@code services} with the rating summaries in
+     * {@code stats} (services without an entry have no reviews).
+     */
+    public static void write(OutputStream target, Instant writtenAt, List<Service> services,
+                             Map<String, CatalogStatsService.Stats> stats) throws IOException {
+        ByteArrayOutputStream records = new ByteArrayOutputStream(services.size() * 256 + 64);
+        DataOutputStream body = new DataOutputStream(records);
+        ByteArrayOutputStream record = new ByteArrayOutputStream(512);
+        DataOutputStream r = new DataOutputStream(record);
+        for (Service s : services) {
+            record.reset();
+            writeString(r, s.getCategory());
+            writeString(r, s.getId());
+            writeString(r, s.getProviderId());
+            writeString(r, s.getProviderName());
+            writeString(r, s.getName());
+            writeString(r, s.getDescription());
+            writeString(r, s.getLocation());
+            writeString(r, s.getImageUrl());
+            r.writeDouble(s.getPrice());
+            r.writeInt(s.getDuration());
+            r.writeLong(s.getCreatedAt() == null ? NO_TIME : s.getCreatedAt().toEpochMilli());
+            CatalogStatsService.Stats st = stats.getOrDefault(s.getId(), CatalogStatsService.Stats.EMPTY);
+            r.writeLong(st.ratingSum());
+            r.writeLong(st.reviewCount());
+            body.writeInt(record.size());
+            record.writeTo(body);
+        }
+        byte[] content = records.toByteArray();
+        CRC32 contentCrc = new CRC32();
+        contentCrc.update(content);
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream(HEADER_BYTES);
+        DataOutputStream h = new DataOutputStream(header);
+        h.writeInt(MAGIC);
+        h.writeInt(VERSION);
+        h.writeLong(writtenAt.toEpochMilli());
+        h.writeInt(services.size());
+        h.writeLong(contentCrc.getValue());
+        CRC32 fileCrc = new CRC32();
+        fileCrc.update(header.toByteArray());
+        fileCrc.update(content);
+
+        DataOutputStream out = new DataOutputStream(target);
+        header.writeTo(out);
+        out.write(content);
+        out.writeLong(fileCrc.getValue());
+        out.flush();
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Maps the image at {@code path}, failing with an {@link IOException} if
+     * it is truncated, corrupt or of another version. Every record is walked
+     * once so that a damaged file fails here rather than on a request.
+     */
+    public static CatalogImage map(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + 8 || size > Integer.MAX_VALUE) {
+                throw new IOException("Catalog image has invalid size " + size);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        ByteBuffer in = buffer.duplicate();
+        if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+            throw new IOException("Not a catalog image of version " + VERSION);
+        }
+        Instant writtenAt = Instant.ofEpochMilli(in.getLong());
+        int count = in.getInt();
+        long contentChecksum = in.getLong();
+
+        int end = buffer.capacity() - 8;
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().limit(end));
+        if (buffer.getLong(end) != crc.getValue()) {
+            throw new IOException("Catalog image checksum mismatch");
+        }
+        try {
+            in.limit(end);
+            for (int i = 0; i < count; i++) {
+                int length = in.getInt();
+                if (length < 0) {
+                    throw new IOException("Negative record length");
+                }
+                in.position(in.position() + length);
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Catalog image records overrun the file", e);
+        }
+        if (in.position() != end) {
+            throw new IOException("Catalog image has trailing bytes");
+        }
+        return new CatalogImage(buffer.asReadOnlyBuffer(), writtenAt, count, contentChecksum);
+    }
+}
@@ -0,0 +1,253 @@
+package com.booktrack.service;
+
+import com.booktrack.event.CatalogChangedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps hot catalog responses as pre-encoded JSON (identity and gzip) so that
+ * repeated {@code GET /api/services} calls skip Mongo and serialization entirely.
+ * Only unfiltered and category-only requests are admitted; free-text and price
+ * filters are serialized per request. Entries are bounded by total byte size and
+ * rebuilt in the background whenever the catalog changes. CBOR and Smile
+ * encodings are transcoded from the JSON on first request and kept with the
+ * entry.
+ * <p>
+ * Loads are single-flight per key: requests missing on a key that is already
+ * being loaded for the current generation (by another request or by the
+ * background rebuild after a catalog write) wait for that load instead of
+ * querying Mongo themselves, so a write to a hot catalog costs one reload
+ * per key rather than one per concurrent request.
+ */
+@org.springframework.stereotype.Service
+public class CatalogResponseCache implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogResponseCache.class);
+
+    private final ObjectMapper objectMapper;
+    private final ResponseFormats formats;
+    private final long maxBytes;
+    private final AtomicLong generation = new AtomicLong();
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Key, Load> loading = new ConcurrentHashMap<>();
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "catalog-cache-rebuild");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Counter hits;
+    private final Counter misses;
+    private long totalBytes;
+
+    public CatalogResponseCache(
+            ObjectMapper objectMapper,
+            ResponseFormats formats,
+            MeterRegistry meterRegistry,
+            @Value("${app.catalog.response-cache.max-bytes:16777216}") long maxBytes
+    ) {
+        this.objectMapper = objectMapper;
+        this.formats = formats;
+        this.maxBytes = maxBytes;
+        this.hits = Counter.builder("cache.gets")
+                .tag("cache", "catalog-responses")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("cache.gets")
+                .tag("cache", "catalog-responses")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("cache.size.bytes", this, c -> c.currentBytes())
+                .tag("cache", "catalog-responses")
+                .register(meterRegistry);
+    }
+
+    public record Key(String category, String location, Double minPrice, Double maxPrice) {
+
+        public boolean cacheable() {
+            return location == null && minPrice == null && maxPrice == null;
+        }
+    }
+
+    public record Entry(long generation, byte[] identity, byte[] gzip, Supplier<?> loader, Map<MediaType, byte[]> binary) {
+
+        long size() {
+            long size = identity.length + gzip.length;
+            for (byte[] b : binary.values()) {
+                size += b.length;
+            }
+            return size;
+        }
+    }
+
+    private record Load(long generation, CompletableFuture<Entry> entry) {
+    }
+
+    public Entry get(Key key, Supplier<?> loader) {
+        long current = generation.get();
+        synchronized (entries) {
+            Entry cached = entries.get(key);
+            if (cached != null && cached.generation() == current) {
+                hits.increment();
+                return cached;
+            }
+        }
+
+        misses.increment();
+        return load(key, current, loader);
+    }
+
+    /**
+     * Encodes and stores {@code key} for generation {@code gen}, or joins a
+     * load of it already running for that generation or a newer one.
+     */
+    private Entry load(Key key, long gen, Supplier<?> loader) {
+        Load mine = new Load(gen, new CompletableFuture<>());
+        Load running = loading.compute(key, (k, other) -> other != null && other.generation() >= gen ? other : mine);
+        if (running != mine) {
+            try {
+                return running.entry().join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException re) {
+                    throw re;
+                }
+                throw e;
+            }
+        }
+        try {
+            Entry fresh = encode(gen, loader);
+            store(key, fresh);
+            mine.entry().complete(fresh);
+            return fresh;
+        } catch (RuntimeException e) {
+            mine.entry().completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, mine);
+        }
+    }
+
+    /**
+     * The entry's body in one of the {@link ResponseFormats} binary encodings.
+     */
+    public byte[] encoded(Entry entry, MediaType type) {
+        byte[] body = entry.binary().get(type);
+        if (body != null) {
+            return body;
+        }
+        body = formats.transcode(entry.identity(), type);
+        synchronized (entries) {
+            byte[] raced = entry.binary().putIfAbsent(type, body);
+            if (raced != null) {
+                return raced;
+            }
+            if (entries.containsValue(entry)) {
+                totalBytes += body.length;
+                trim(entry);
+            }
+        }
+        return body;
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        rebuilder.execute(this::rebuildAll);
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        invalidate();
+    }
+
+    private void rebuildAll() {
+        List<Map.Entry<Key, Entry>> snapshot;
+        synchronized (entries) {
+            snapshot = new ArrayList<>(entries.entrySet());
+        }
+        for (Map.Entry<Key, Entry> e : snapshot) {
+            long current = generation.get();
+            if (e.getValue().generation() == current) {
+                continue;
+            }
+            try {
+                load(e.getKey(), current, e.getValue().loader());
+            } catch (RuntimeException ex) {
+                log.warn("Failed to rebuild catalog response for {}", e.getKey(), ex);
+            }
+        }
+    }
+
+    private void store(Key key, Entry entry) {
+        synchronized (entries) {
+            if (entry.generation() != generation.get()) {
+                return;
+            }
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                totalBytes -= previous.size();
+            }
+            totalBytes += entry.size();
+            trim(entry);
+        }
+    }
+
+    private void trim(Entry keep) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Entry eldest = it.next();
+            if (eldest == keep) {
+                continue;
+            }
+            totalBytes -= eldest.size();
+            it.remove();
+        }
+    }
+
+    private long currentBytes() {
+        synchronized (entries) {
+            return totalBytes;
+        }
+    }
+
+    private Entry encode(long gen, Supplier<?> loader) {
+        try {
+            byte[] identity = objectMapper.writeValueAsBytes(loader.get());
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(identity.length / 4 + 64);
+            try (GZIPOutputStream gz = new GZIPOutputStream(bos)) {
+                gz.write(identity);
+            }
+            return new Entry(gen, identity, bos.toByteArray(), loader, new ConcurrentHashMap<>());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        rebuilder.shutdown();
+    }
+}
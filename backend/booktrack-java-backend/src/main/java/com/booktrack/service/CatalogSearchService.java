@@ -0,0 +1,290 @@
+package com.booktrack.service;
+
+import com.booktrack.model.Service;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Sorted, cursor-paginated catalog search. Price orders are served by the
+ * {@code (category, price, id)} / {@code (price, id)} indexes with keyset
+ * pagination. Rating, popularity and relevance are not stored on services, so
+ * matches are streamed with a narrow projection, scored from
+ * {@link CatalogStatsService} and reduced with a {@link TopK} heap of
+ * {@code limit + 1}, keeping memory independent of the number of matches.
+ * Reads go through the catalog template and may be served by a secondary.
+ */
+@org.springframework.stereotype.Service
+public class CatalogSearchService {
+
+    public static final int MAX_LIMIT = 100;
+
+    private static final double TEXT_WEIGHT = 0.5;
+    private static final double RATING_WEIGHT = 0.3;
+    private static final double POPULARITY_WEIGHT = 0.2;
+
+    public enum SortOrder {
+        PRICE_ASC("price_asc"),
+        PRICE_DESC("price_desc"),
+        RATING("rating"),
+        POPULARITY("popularity"),
+        RELEVANCE("relevance");
+
+        private final String value;
+
+        SortOrder(String value) {
+            this.value = value;
+        }
+
+        public String value() {
+            return value;
+        }
+
+        public static SortOrder parse(String value) {
+            for (SortOrder s : values()) {
+                if (s.value.equalsIgnoreCase(value)) {
+                    return s;
+                }
+            }
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown sort: " + value);
+        }
+    }
+
+    public record SearchQuery(
+            String q,
+            String category,
+            String location,
+            Double minPrice,
+            Double maxPrice,
+            SortOrder sort,
+            int limit,
+            String cursor
+    ) {
+    }
+
+    public record Page(List<Map<String, Object>> items, String nextCursor) {
+    }
+
+    private record Scored(String id, double score) {
+    }
+
+    private static final Comparator<Scored> BEST_FIRST = Comparator.comparingDouble(Scored::score).reversed()
+            .thenComparing(Scored::id);
+
+    private final MongoTemplate mongoTemplate;
+    private final CatalogStatsService catalogStats;
+
+    public CatalogSearchService(
+            @Qualifier("catalogMongoTemplate") MongoTemplate mongoTemplate,
+            CatalogStatsService catalogStats
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.catalogStats = catalogStats;
+    }
+
+    public Page search(SearchQuery query) {
+        int limit = Math.max(1, Math.min(query.limit(), MAX_LIMIT));
+        Cursor cursor = query.cursor() == null || query.cursor().isBlank() ? null : Cursor.decode(query.cursor(), query.sort());
+        List<String> terms = terms(query.q());
+
+        List<Criteria> criteria = new ArrayList<>();
+        Criteria base = filter(query.category(), query.location(), query.minPrice(), query.maxPrice());
+        if (base != null) {
+            criteria.add(base);
+        }
+        for (String term : terms) {
+            String pattern = Pattern.quote(term);
+            criteria.add(new Criteria().orOperator(
+                    Criteria.where("name").regex(pattern, "i"),
+                    Criteria.where("category").regex(pattern, "i"),
+                    Criteria.where("providerName").regex(pattern, "i")));
+        }
+
+        return switch (query.sort()) {
+            case PRICE_ASC, PRICE_DESC -> byPrice(criteria, query.sort(), limit, cursor);
+            default -> ranked(criteria, query.sort(), terms, limit, cursor);
+        };
+    }
+
+    /**
+     * The catalog filter shared by {@code GET /api/services} and search, or
+     * {@code null} when nothing is filtered.
+     */
+    public static Criteria filter(String category, String location, Double minPrice, Double maxPrice) {
+        List<Criteria> criteria = new ArrayList<>();
+
+        if (category != null) {
+            criteria.add(Criteria.where("category").is(category));
+        }
+        if (location != null) {
+            criteria.add(Criteria.where("location").regex(location, "i"));
+        }
+        if (minPrice != null || maxPrice != null) {
+            Criteria priceCriteria = Criteria.where("price");
+            if (minPrice != null && maxPrice != null) {
+                priceCriteria.gte(minPrice).lte(maxPrice);
+            } else if (minPrice != null) {
+                priceCriteria.gte(minPrice);
+            } else {
+                priceCriteria.lte(maxPrice);
+            }
+            criteria.add(priceCriteria);
+        }
+
+        return criteria.isEmpty() ? null : new Criteria().andOperator(criteria.toArray(new Criteria[0]));
+    }
+
+    private Page byPrice(List<Criteria> criteria, SortOrder sort, int limit, Cursor cursor) {
+        boolean asc = sort == SortOrder.PRICE_ASC;
+        List<Criteria> all = new ArrayList<>(criteria);
+        if (cursor != null) {
+            all.add(new Criteria().orOperator(
+                    asc ? Criteria.where("price").gt(cursor.key()) : Criteria.where("price").lt(cursor.key()),
+                    new Criteria().andOperator(
+                            Criteria.where("price").is(cursor.key()),
+                            asc ? Criteria.where("id").gt(cursor.id()) : Criteria.where("id").lt(cursor.id()))));
+        }
+        Sort.Direction dir = asc ? Sort.Direction.ASC : Sort.Direction.DESC;
+        Query q = query(all).with(Sort.by(dir, "price").and(Sort.by(dir, "id"))).limit(limit + 1);
+        List<Service> services = mongoTemplate.find(q, Service.class);
+
+        String next = null;
+        if (services.size() > limit) {
+            services = services.subList(0, limit);
+            Service last = services.get(limit - 1);
+            next = new Cursor(sort, last.getPrice(), last.getId()).encode();
+        }
+        return new Page(summaries(services), next);
+    }
+
+    private Page ranked(List<Criteria> criteria, SortOrder sort, List<String> terms, int limit, Cursor cursor) {
+        double globalMean = catalogStats.globalMeanRating();
+        double popularityScale = Math.log1p(catalogStats.maxBookings());
+        Scored after = cursor == null ? null : new Scored(cursor.id(), cursor.key());
+
+        Query q = query(criteria).cursorBatchSize(1000);
+        q.fields().include("id", "name", "category", "providerName");
+        TopK<Scored> top = new TopK<>(limit + 1, BEST_FIRST);
+        try (Stream<Service> stream = mongoTemplate.stream(q, Service.class)) {
+            stream.forEach(s -> {
+                CatalogStatsService.Stats stats = catalogStats.get(s.getId());
+                double score = switch (sort) {
+                    case RATING -> stats.bayesianRating(globalMean);
+                    case POPULARITY -> stats.bookingCount();
+                    default -> TEXT_WEIGHT * textScore(s, terms)
+                            + RATING_WEIGHT * stats.bayesianRating(globalMean) / 5.0
+                            + POPULARITY_WEIGHT * (popularityScale == 0 ? 0 : Math.log1p(stats.bookingCount()) / popularityScale);
+                };
+                Scored candidate = new Scored(s.getId(), score);
+                if (after == null || BEST_FIRST.compare(candidate, after) > 0) {
+                    top.offer(candidate);
+                }
+            });
+        }
+
+        List<Scored> ranked = top.result();
+        String next = null;
+        if (ranked.size() > limit) {
+            ranked = ranked.subList(0, limit);
+            Scored last = ranked.get(limit - 1);
+            next = new Cursor(sort, last.score(), last.id()).encode();
+        }
+
+        List<String> ids = ranked.stream().map(Scored::id).collect(Collectors.toList());
+        Map<String, Service> byId = mongoTemplate.find(Query.query(Criteria.where("id").in(ids)), Service.class)
+                .stream()
+                .collect(Collectors.toMap(Service::getId, Function.identity(), (a, b) -> a));
+        List<Service> services = ids.stream().map(byId::get).filter(s -> s != null).collect(Collectors.toList());
+        return new Page(summaries(services), next);
+    }
+
+    private List<Map<String, Object>> summaries(List<Service> services) {
+        return services.stream()
+                .map(s -> ServiceViews.summary(s, catalogStats.get(s.getId())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Share of query terms found in the service, weighting a word-prefix
+     * match on the name above a substring match, and either above a match on
+     * category or provider name.
+     */
+    static double textScore(Service s, List<String> terms) {
+        if (terms.isEmpty()) {
+            return 0;
+        }
+        String name = lower(s.getName());
+        String other = lower(s.getCategory()) + ' ' + lower(s.getProviderName());
+        double total = 0;
+        for (String term : terms) {
+            if (name.startsWith(term) || name.contains(" " + term)) {
+                total += 1.0;
+            } else if (name.contains(term)) {
+                total += 0.6;
+            } else if (other.contains(term)) {
+                total += 0.4;
+            }
+        }
+        return total / terms.size();
+    }
+
+    private static List<String> terms(String q) {
+        if (q == null || q.isBlank()) {
+            return List.of();
+        }
+        return Stream.of(q.toLowerCase(Locale.ROOT).trim().split("\\s+"))
+                .distinct()
+                .limit(8)
+                .collect(Collectors.toList());
+    }
+
+    private static String lower(String s) {
+        return s == null ? "" : s.toLowerCase(Locale.ROOT);
+    }
+
+    private static Query query(List<Criteria> criteria) {
+        return criteria.isEmpty() ? new Query() : Query.query(new Criteria().andOperator(criteria.toArray(new Criteria[0])));
+    }
+
+    /**
+     * Position after the last item of a page: the sort key (price or score)
+     * and the service id that breaks ties.
+     */
+    private record Cursor(SortOrder sort, double key, String id) {
+
+        String encode() {
+            String raw = sort.value() + "|" + key + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String value, SortOrder expected) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+                String[] parts = raw.split("\\|", 3);
+                SortOrder sort = SortOrder.parse(parts[0]);
+                if (sort != expected) {
+                    throw new IllegalArgumentException("cursor sort mismatch");
+                }
+                return new Cursor(sort, Double.parseDouble(parts[1]), parts[2]);
+            } catch (RuntimeException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+            }
+        }
+    }
+}
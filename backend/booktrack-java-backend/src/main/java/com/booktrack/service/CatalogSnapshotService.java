@@ -0,0 +1,200 @@
+package com.booktrack.service;
+
+import com.booktrack.event.CatalogChangedEvent;
+import com.booktrack.model.Service;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves {@code GET /api/services} from a {@link CatalogImage} on local disk
+ * so that a restarted node answers catalog reads before its caches and Mongo
+ * connections are warm. The image at {@code app.catalog.snapshot.path} is
+ * mapped while the context starts; once the application is ready it is
+ * rebuilt from Mongo (one {@code services} query and one {@code reviews}
+ * aggregation) and rewritten every {@code app.catalog.snapshot.interval-minutes}.
+ * <p>
+ * The image is only served while it is known to match the catalog: a corrupt
+ * or unreadable file, or one older than {@code max-age-minutes}, is never
+ * mapped; a local catalog change retires the image until the next rebuild;
+ * and an image whose rebuilds keep failing stops being served once it ages
+ * past {@code max-age-minutes}. Callers get {@code null} and read Mongo
+ * instead. An empty path disables the snapshot.
+ */
+@org.springframework.stereotype.Service
+public class CatalogSnapshotService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSnapshotService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final CatalogResponseCache responseCache;
+    private final Path path;
+    private final long intervalMinutes;
+    private final Duration maxAge;
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "catalog-snapshot");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile CatalogImage image;
+    private long changes;
+
+    public CatalogSnapshotService(
+            MongoTemplate mongoTemplate,
+            CatalogResponseCache responseCache,
+            MeterRegistry meterRegistry,
+            @Value("${app.catalog.snapshot.path:data/catalog.snapshot}") String path,
+            @Value("${app.catalog.snapshot.interval-minutes:10}") long intervalMinutes,
+            @Value("${app.catalog.snapshot.max-age-minutes:60}") long maxAgeMinutes
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.responseCache = responseCache;
+        this.path = path.isBlank() ? null : Path.of(path);
+        this.intervalMinutes = intervalMinutes;
+        this.maxAge = Duration.ofMinutes(maxAgeMinutes);
+        this.image = open();
+        Gauge.builder("catalog.snapshot.serving", this, s -> s.current() == null ? 0 : 1)
+                .description("1 while catalog reads are served from the local snapshot")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (path != null) {
+            writer.scheduleWithFixedDelay(this::refresh, 0, intervalMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Catalog summaries for {@code category} (all services when null) from
+     * the snapshot, or {@code null} when the snapshot cannot be trusted and
+     * the caller must query Mongo.
+     */
+    public List<Map<String, Object>> summaries(String category) {
+        CatalogImage current = current();
+        return current == null ? null : current.summaries(category);
+    }
+
+    private CatalogImage current() {
+        CatalogImage current = image;
+        if (current != null && current.writtenAt().plus(maxAge).isBefore(Instant.now())) {
+            return null;
+        }
+        return current;
+    }
+
+    // Ordered ahead of the response cache's listener so that the rebuild it
+    // triggers already reads from Mongo.
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener
+    public synchronized void onCatalogChanged(CatalogChangedEvent event) {
+        changes++;
+        image = null;
+    }
+
+    private CatalogImage open() {
+        if (path == null) {
+            return null;
+        }
+        try {
+            CatalogImage opened = CatalogImage.map(path);
+            if (opened.writtenAt().plus(maxAge).isBefore(Instant.now())) {
+                log.info("Ignoring catalog snapshot {} written at {}: older than {}", path, opened.writtenAt(), maxAge);
+                return null;
+            }
+            log.info("Serving catalog from snapshot {}: {} services written at {}", path, opened.size(), opened.writtenAt());
+            return opened;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable catalog snapshot {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Rebuilds the image from Mongo, writes it and serves it unless the
+     * catalog changed locally while it was being read.
+     */
+    void refresh() {
+        long seen;
+        synchronized (this) {
+            seen = changes;
+        }
+        try {
+            long start = System.nanoTime();
+            Instant now = Instant.now();
+            List<Service> services = mongoTemplate.find(new Query(), Service.class);
+            Map<String, CatalogStatsService.Stats> ratings = new HashMap<>();
+            Aggregation reviews = Aggregation.newAggregation(
+                    Aggregation.group("serviceId").sum("rating").as("sum").count().as("count"));
+            for (Document d : mongoTemplate.aggregate(reviews, "reviews", Document.class)) {
+                if (d.get("_id") instanceof String id) {
+                    ratings.put(id, new CatalogStatsService.Stats(
+                            ((Number) d.get("sum")).longValue(), ((Number) d.get("count")).longValue(), 0));
+                }
+            }
+
+            Path dir = path.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, path.getFileName().toString(), ".tmp");
+            try {
+                try (OutputStream out = Files.newOutputStream(tmp)) {
+                    CatalogImage.write(out, now, services, ratings);
+                }
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            CatalogImage fresh = CatalogImage.map(path);
+
+            CatalogImage previous;
+            synchronized (this) {
+                if (changes != seen) {
+                    return;
+                }
+                previous = image;
+                image = fresh;
+            }
+            if (previous != null && previous.contentChecksum() != fresh.contentChecksum()) {
+                // Responses cached from the old image are out of date.
+                responseCache.invalidate();
+            }
+            log.debug("Catalog snapshot written: {} services, {} KiB in {} ms",
+                    fresh.size(), fresh.bytes() / 1024, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Catalog snapshot refresh failed", e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        writer.shutdownNow();
+    }
+}
@@ -0,0 +1,165 @@
+package com.booktrack.service;
+
+import com.booktrack.repository.BookingRepository;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-service review and booking counters used to rank the catalog without
+ * reading {@code reviews} and {@code bookings} per request. Counters are
+ * loaded with {@code $group} aggregations at startup (bookings through
+ * {@link BookingRepository#countByServiceId}, which counts archived ones
+ * once), bumped in place on
+ * new reviews and bookings, and fully reloaded every
+ * {@code app.catalog.stats.refresh-minutes} so that instances converge on
+ * writes made elsewhere.
+ */
+@org.springframework.stereotype.Service
+public class CatalogStatsService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogStatsService.class);
+
+    /**
+     * Weight of the global mean in {@link Stats#bayesianRating}, in reviews.
+     */
+    private static final double PRIOR_REVIEWS = 5;
+
+    public record Stats(long ratingSum, long reviewCount, long bookingCount) {
+
+        static final Stats EMPTY = new Stats(0, 0, 0);
+
+        public double averageRating() {
+            return reviewCount == 0 ? 0 : (double) ratingSum / reviewCount;
+        }
+
+        /**
+         * Average rating pulled towards {@code globalMean} while the service
+         * has few reviews, so one 5-star review doesn't outrank hundreds of
+         * 4.8s.
+         */
+        public double bayesianRating(double globalMean) {
+            return (PRIOR_REVIEWS * globalMean + ratingSum) / (PRIOR_REVIEWS + reviewCount);
+        }
+
+        Stats plus(Stats o) {
+            return new Stats(ratingSum + o.ratingSum, reviewCount + o.reviewCount, bookingCount + o.bookingCount);
+        }
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final BookingRepository bookingRepo;
+    private final long refreshMinutes;
+    private volatile Map<String, Stats> stats = new ConcurrentHashMap<>();
+    private volatile long maxBookings;
+    private final AtomicLong totalRatingSum = new AtomicLong();
+    private final AtomicLong totalReviews = new AtomicLong();
+    private final CompletableFuture<Void> loaded = new CompletableFuture<>();
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "catalog-stats-refresh");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public CatalogStatsService(
+            MongoTemplate mongoTemplate,
+            BookingRepository bookingRepo,
+            @Value("${app.catalog.stats.refresh-minutes:10}") long refreshMinutes
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.bookingRepo = bookingRepo;
+        this.refreshMinutes = refreshMinutes;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        refresher.scheduleWithFixedDelay(this::refresh, 0, refreshMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Completes once the first refresh has run, successfully or not.
+     */
+    public CompletableFuture<Void> loaded() {
+        return loaded;
+    }
+
+    public Stats get(String serviceId) {
+        return stats.getOrDefault(serviceId, Stats.EMPTY);
+    }
+
+    public double globalMeanRating() {
+        long count = totalReviews.get();
+        return count == 0 ? 0 : (double) totalRatingSum.get() / count;
+    }
+
+    public long maxBookings() {
+        return maxBookings;
+    }
+
+    public void recordReview(String serviceId, int rating) {
+        stats.merge(serviceId, new Stats(rating, 1, 0), Stats::plus);
+        totalRatingSum.addAndGet(rating);
+        totalReviews.incrementAndGet();
+    }
+
+    public void recordBooking(String serviceId) {
+        Stats s = stats.merge(serviceId, new Stats(0, 0, 1), Stats::plus);
+        if (s.bookingCount() > maxBookings) {
+            maxBookings = s.bookingCount();
+        }
+    }
+
+    public void remove(String serviceId) {
+        stats.remove(serviceId);
+    }
+
+    void refresh() {
+        try {
+            Map<String, Stats> next = new ConcurrentHashMap<>();
+            long ratingSum = 0;
+            long reviewCount = 0;
+            Aggregation reviews = Aggregation.newAggregation(
+                    Aggregation.group("serviceId").sum("rating").as("sum").count().as("count"));
+            for (Document d : mongoTemplate.aggregate(reviews, "reviews", Document.class)) {
+                if (d.get("_id") instanceof String id) {
+                    Stats s = new Stats(((Number) d.get("sum")).longValue(), ((Number) d.get("count")).longValue(), 0);
+                    next.merge(id, s, Stats::plus);
+                    ratingSum += s.ratingSum();
+                    reviewCount += s.reviewCount();
+                }
+            }
+            long max = 0;
+            for (Map.Entry<String, Long> e : bookingRepo.countByServiceId().entrySet()) {
+                Stats s = next.merge(e.getKey(), new Stats(0, 0, e.getValue()), Stats::plus);
+                max = Math.max(max, s.bookingCount());
+            }
+            stats = next;
+            maxBookings = max;
+            totalRatingSum.set(ratingSum);
+            totalReviews.set(reviewCount);
+        } catch (RuntimeException e) {
+            log.warn("Catalog stats refresh failed; keeping previous counters", e);
+        } finally {
+            loaded.complete(null);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        refresher.shutdownNow();
+    }
+}
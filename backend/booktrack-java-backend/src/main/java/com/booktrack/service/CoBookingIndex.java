@@ -0,0 +1,232 @@
+package com.booktrack.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * "Customers who booked this also booked": for every pair of services, the
+ * number of distinct users who booked both. Service ids are interned to dense
+ * ints; each service owns an {@link IntIntHashMap} from co-booked service to
+ * count, and each user the ints of the services they booked. Adding a
+ * (user, service) pair the index already has is a no-op, so replaying
+ * overlapping booking ranges is safe.
+ * <p>
+ * Not thread safe; {@link RecommendationService} serializes access. The
+ * snapshot format keeps only the interned ids and each user's services
+ * (co-counts are recomputed on load) followed by a CRC32 of everything before
+ * it.
+ */
+public final class CoBookingIndex {
+
+    private static final int MAGIC = 0x43424B31; // "CBK1"
+    private static final int VERSION = 1;
+
+    public record Recommendation(String serviceId, int count) {
+    }
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> serviceIds = new ArrayList<>();
+    private final List<IntIntHashMap> coBooked = new ArrayList<>();
+    private final Map<String, int[]> users = new HashMap<>();
+    private long pairs;
+    private Instant coveredUntil;
+
+    /**
+     * Records that {@code userId} booked {@code serviceId}; returns false if
+     * that pair was already known. {@code createdAt} advances
+     * {@link #coveredUntil()}.
+     */
+    public boolean add(String userId, String serviceId, Instant createdAt) {
+        if (createdAt != null && (coveredUntil == null || createdAt.isAfter(coveredUntil))) {
+            coveredUntil = createdAt;
+        }
+        if (userId == null || serviceId == null) {
+            return false;
+        }
+        return add(userId, intern(serviceId));
+    }
+
+    private boolean add(String userId, int service) {
+        int[] booked = users.get(userId);
+        if (booked == null) {
+            users.put(userId, new int[]{service});
+            pairs++;
+            return true;
+        }
+        for (int other : booked) {
+            if (other == service) {
+                return false;
+            }
+        }
+        IntIntHashMap mine = coBooked.get(service);
+        for (int other : booked) {
+            mine.addTo(other, 1);
+            coBooked.get(other).addTo(service, 1);
+        }
+        int[] grown = Arrays.copyOf(booked, booked.length + 1);
+        grown[booked.length] = service;
+        users.put(userId, grown);
+        pairs++;
+        return true;
+    }
+
+    private int intern(String serviceId) {
+        Integer id = ids.get(serviceId);
+        if (id != null) {
+            return id;
+        }
+        int next = serviceIds.size();
+        ids.put(serviceId, next);
+        serviceIds.add(serviceId);
+        coBooked.add(new IntIntHashMap());
+        return next;
+    }
+
+    /**
+     * Up to {@code k} services most often co-booked with {@code serviceId},
+     * highest count first (ties by first appearance).
+     */
+    public List<Recommendation> top(String serviceId, int k) {
+        Integer id = ids.get(serviceId);
+        if (id == null || k <= 0) {
+            return List.of();
+        }
+        int[] bestKeys = new int[k];
+        int[] bestCounts = new int[k];
+        int[] n = {0};
+        coBooked.get(id).forEach((key, count) -> {
+            int filled = n[0];
+            if (filled == k && !better(count, key, bestCounts[k - 1], bestKeys[k - 1])) {
+                return;
+            }
+            int i = filled == k ? k - 1 : filled;
+            while (i > 0 && better(count, key, bestCounts[i - 1], bestKeys[i - 1])) {
+                bestKeys[i] = bestKeys[i - 1];
+                bestCounts[i] = bestCounts[i - 1];
+                i--;
+            }
+            bestKeys[i] = key;
+            bestCounts[i] = count;
+            if (filled < k) {
+                n[0]++;
+            }
+        });
+        List<Recommendation> out = new ArrayList<>(n[0]);
+        for (int i = 0; i < n[0]; i++) {
+            out.add(new Recommendation(serviceIds.get(bestKeys[i]), bestCounts[i]));
+        }
+        return out;
+    }
+
+    private static boolean better(int count, int key, int otherCount, int otherKey) {
+        return count > otherCount || (count == otherCount && key < otherKey);
+    }
+
+    public int services() {
+        return serviceIds.size();
+    }
+
+    public int users() {
+        return users.size();
+    }
+
+    public long pairs() {
+        return pairs;
+    }
+
+    /**
+     * The newest booking {@code createdAt} added so far, or {@code null}.
+     */
+    public Instant coveredUntil() {
+        return coveredUntil;
+    }
+
+    public long estimatedBytes() {
+        long bytes = 0;
+        for (IntIntHashMap m : coBooked) {
+            bytes += m.estimatedBytes() + 16;
+        }
+        for (Map.Entry<String, int[]> e : users.entrySet()) {
+            bytes += 48 + 2L * e.getKey().length() + 16 + 4L * e.getValue().length;
+        }
+        for (String id : serviceIds) {
+            bytes += 48 + 2L * id.length() + 32;
+        }
+        return bytes;
+    }
+
+    public void write(OutputStream target) throws IOException {
+        CRC32 crc = new CRC32();
+        BufferedOutputStream buffered = new BufferedOutputStream(target, 1 << 16);
+        DataOutputStream out = new DataOutputStream(new CheckedOutputStream(buffered, crc));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(coveredUntil == null ? Long.MIN_VALUE : coveredUntil.toEpochMilli());
+        out.writeInt(serviceIds.size());
+        for (String id : serviceIds) {
+            out.writeUTF(id);
+        }
+        out.writeInt(users.size());
+        for (Map.Entry<String, int[]> e : users.entrySet()) {
+            out.writeUTF(e.getKey());
+            out.writeInt(e.getValue().length);
+            for (int s : e.getValue()) {
+                out.writeInt(s);
+            }
+        }
+        out.flush();
+        new DataOutputStream(buffered).writeLong(crc.getValue());
+        buffered.flush();
+    }
+
+    /**
+     * Reads a snapshot written by {@link #write}, failing with an
+     * {@link IOException} if it is truncated, corrupt or of another version.
+     */
+    public static CoBookingIndex read(InputStream source) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(source, 1 << 16);
+        CheckedInputStream checked = new CheckedInputStream(buffered, new CRC32());
+        DataInputStream in = new DataInputStream(checked);
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not a co-booking snapshot of version " + VERSION);
+        }
+        CoBookingIndex index = new CoBookingIndex();
+        long covered = in.readLong();
+        index.coveredUntil = covered == Long.MIN_VALUE ? null : Instant.ofEpochMilli(covered);
+        int services = in.readInt();
+        for (int i = 0; i < services; i++) {
+            index.intern(in.readUTF());
+        }
+        int users = in.readInt();
+        for (int u = 0; u < users; u++) {
+            String userId = in.readUTF();
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                int s = in.readInt();
+                if (s < 0 || s >= services) {
+                    throw new IOException("Service index out of range: " + s);
+                }
+                index.add(userId, s);
+            }
+        }
+        long expected = checked.getChecksum().getValue();
+        if (new DataInputStream(buffered).readLong() != expected) {
+            throw new IOException("Co-booking snapshot checksum mismatch");
+        }
+        return index;
+    }
+}
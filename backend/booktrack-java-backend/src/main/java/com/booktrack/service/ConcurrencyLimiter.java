@@ -0,0 +1,246 @@
+package com.booktrack.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Adaptive limit on concurrently executing requests, found with a latency
+ * gradient: the limit grows while recent latency stays close to its long-run
+ * average and shrinks in proportion when latency rises, i.e. when requests
+ * start queueing for threads, connections or CPU instead of doing work.
+ * <p>
+ * Every 250 ms a timer tick compares, per {@link Priority}, the
+ * average latency of the requests that class completed since its last
+ * evaluation ({@code short}) with that class's exponentially weighted
+ * long-run average ({@code long}), which rises ten times slower than it falls
+ * so that a sustained overload keeps registering as congestion rather than
+ * becoming the new normal. Baselines are kept per class because the classes
+ * do very different work: a checkout waiting on Stripe is not a sign that
+ * catalog reads are queueing. The per-class gradients
+ * {@code clamp(TOLERANCE * long / short, 0.5, 1)} are averaged, weighted by
+ * sample count, and the new limit is {@code limit * gradient + sqrt(limit)},
+ * smoothed and clamped to {@code [min-limit, max-limit]}. The limit only
+ * grows while the window actually used at least half of it, so an idle node
+ * doesn't talk itself into an unbounded limit. Releases only add to
+ * {@link LongAdder}s; callers decide which requests are representative
+ * samples (see {@link com.booktrack.filter.LoadShedFilter}).
+ * <p>
+ * Each {@link Priority} may fill only its share of the limit, so when load
+ * climbs public catalog traffic is turned away first, then authenticated
+ * reads, then booking writes, and payments last. Classes above public also
+ * keep a small reserve of the limit for their own requests, so slow
+ * low-priority requests admitted before the limit dropped cannot lock them
+ * out while they drain.
+ */
+@Service
+public class ConcurrencyLimiter implements DisposableBean {
+
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final int LONG_WINDOW_SAMPLES = 600;
+    private static final int BASELINE_RISE_DAMPING = 10;
+    private static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    private static final int MIN_WINDOW_SAMPLES = 10;
+
+    /**
+     * Request classes, highest priority first.
+     */
+    public enum Priority {
+        PAYMENT(1.0, 0.2),
+        BOOKING(0.9, 0.2),
+        AUTHENTICATED(0.8, 0.1),
+        PUBLIC(0.6, 0);
+
+        private final double share;
+        private final double reserve;
+
+        Priority(double share, double reserve) {
+            this.share = share;
+            this.reserve = reserve;
+        }
+
+        /**
+         * The fraction of the limit this class may fill.
+         */
+        public double share() {
+            return share;
+        }
+
+        /**
+         * The fraction of the limit this class may always use for itself.
+         */
+        public double reserve() {
+            return reserve;
+        }
+    }
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final AtomicInteger[] inflightByPriority = new AtomicInteger[Priority.values().length];
+    private final LongAdder[] latencySum = new LongAdder[Priority.values().length];
+    private final LongAdder[] latencyCount = new LongAdder[Priority.values().length];
+    private final LongAccumulator maxInflight = new LongAccumulator(Math::max, 0);
+    private final Map<Priority, Counter> rejections = new EnumMap<>(Priority.class);
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "concurrency-limit");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile double limit;
+
+    // Confined to the ticker thread.
+    private final double[] longRttNanos = new double[Priority.values().length];
+    private final long[] pendingSum = new long[Priority.values().length];
+    private final long[] pendingCount = new long[Priority.values().length];
+
+    public ConcurrencyLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${app.load-shedding.initial-limit:50}") int initialLimit,
+            @Value("${app.load-shedding.min-limit:20}") int minLimit,
+            @Value("${app.load-shedding.max-limit:500}") int maxLimit
+    ) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        for (Priority p : Priority.values()) {
+            inflightByPriority[p.ordinal()] = new AtomicInteger();
+            latencySum[p.ordinal()] = new LongAdder();
+            latencyCount[p.ordinal()] = new LongAdder();
+            rejections.put(p, Counter.builder("concurrency.rejections")
+                    .description("Requests shed by the adaptive concurrency limiter")
+                    .tag("priority", p.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+        Gauge.builder("concurrency.limit", this, ConcurrencyLimiter::limit)
+                .description("Current adaptive concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("concurrency.inflight", inflight, AtomicInteger::get)
+                .description("Requests currently admitted by the concurrency limiter")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        ticker.scheduleAtFixedRate(this::adjust, WINDOW_NANOS, WINDOW_NANOS, TimeUnit.NANOSECONDS);
+    }
+
+    public int limit() {
+        return (int) limit;
+    }
+
+    public int inflight() {
+        return inflight.get();
+    }
+
+    /**
+     * Admits a request of {@code priority} and returns the in-flight count it
+     * was admitted at, to be handed back to {@link #release}; returns -1 if
+     * the request should be shed.
+     */
+    public int tryAcquire(Priority priority) {
+        double current = limit;
+        int ceiling = Math.max(1, (int) (current * priority.share()));
+        int reserved = (int) (current * priority.reserve());
+        AtomicInteger own = inflightByPriority[priority.ordinal()];
+        while (true) {
+            int total = inflight.get();
+            if (total >= ceiling && own.get() >= reserved) {
+                rejections.get(priority).increment();
+                return -1;
+            }
+            if (inflight.compareAndSet(total, total + 1)) {
+                own.incrementAndGet();
+                return total + 1;
+            }
+        }
+    }
+
+    /**
+     * Releases a permit from {@link #tryAcquire}, feeding the request's
+     * latency into the limit.
+     */
+    public void release(Priority priority, int admittedAt, long latencyNanos) {
+        release(priority, admittedAt);
+        latencySum[priority.ordinal()].add(latencyNanos);
+        latencyCount[priority.ordinal()].increment();
+    }
+
+    /**
+     * Releases a permit from {@link #tryAcquire} without sampling its
+     * latency, for requests whose duration says nothing about congestion.
+     */
+    public void release(Priority priority, int admittedAt) {
+        inflightByPriority[priority.ordinal()].decrementAndGet();
+        inflight.decrementAndGet();
+        maxInflight.accumulate(admittedAt);
+    }
+
+    void adjust() {
+        double weightedGradient = 0;
+        long samples = 0;
+        for (Priority p : Priority.values()) {
+            int i = p.ordinal();
+            pendingCount[i] += latencyCount[i].sumThenReset();
+            pendingSum[i] += latencySum[i].sumThenReset();
+            if (pendingCount[i] < MIN_WINDOW_SAMPLES) {
+                continue;
+            }
+            double shortRtt = (double) pendingSum[i] / pendingCount[i];
+            double longRtt = longRttNanos[i];
+            if (longRtt == 0) {
+                longRtt = shortRtt;
+            } else {
+                double alpha = Math.min(1.0, (double) pendingCount[i] / LONG_WINDOW_SAMPLES);
+                if (shortRtt > longRtt) {
+                    alpha /= BASELINE_RISE_DAMPING;
+                }
+                longRtt += alpha * (shortRtt - longRtt);
+                // After a sustained slowdown the long average has absorbed it;
+                // let it recover quickly once latency drops again.
+                if (longRtt > 2 * shortRtt) {
+                    longRtt *= 0.95;
+                }
+            }
+            longRttNanos[i] = longRtt;
+            weightedGradient += pendingCount[i] * Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+            samples += pendingCount[i];
+            pendingCount[i] = 0;
+            pendingSum[i] = 0;
+        }
+        if (samples == 0) {
+            return;
+        }
+
+        long peakInflight = maxInflight.getThenReset();
+        double current = limit;
+        double gradient = weightedGradient / samples;
+        double next = current * gradient + Math.sqrt(current);
+        if (next > current && peakInflight < current / 2) {
+            next = current;
+        }
+        next = current * (1 - SMOOTHING) + next * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    @Override
+    public void destroy() {
+        ticker.shutdownNow();
+    }
+}
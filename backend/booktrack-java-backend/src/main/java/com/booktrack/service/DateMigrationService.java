@@ -0,0 +1,166 @@
+package com.booktrack.service;
+
+import com.booktrack.config.StringToInstantConverter;
+import com.booktrack.model.Booking;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts legacy string {@code createdAt} values to native dates and fills in
+ * {@code Booking.startsAt} from the free-form {@code date}/{@code time} pair.
+ * Each collection is walked in {@code _id} order in small batches written with
+ * unordered bulk updates; the last processed {@code _id} is checkpointed in the
+ * {@code migrations} collection so a restart resumes where it left off. Reads
+ * stay correct throughout because {@link StringToInstantConverter} still maps
+ * unconverted documents.
+ */
+@org.springframework.stereotype.Service
+public class DateMigrationService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(DateMigrationService.class);
+
+    private static final String MIGRATIONS = "migrations";
+    private static final String MIGRATION_ID = "native-dates";
+    private static final List<String> COLLECTIONS = List.of(
+            "users", "services", "bookings", "reviews", "payment_transactions"
+    );
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long pauseMillis;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "date-migration");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public DateMigrationService(
+            MongoTemplate mongoTemplate,
+            @Value("${app.migration.native-dates.enabled:true}") boolean enabled,
+            @Value("${app.migration.native-dates.batch-size:500}") int batchSize,
+            @Value("${app.migration.native-dates.pause-ms:50}") long pauseMillis
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.pauseMillis = pauseMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            worker.execute(this::run);
+        }
+    }
+
+    private void run() {
+        try {
+            for (String collection : COLLECTIONS) {
+                Document state = state(collection);
+                if (state.getBoolean("done", false)) {
+                    continue;
+                }
+                long converted = migrate(collection, state.get("lastId"), state.get("converted", 0L));
+                log.info("Converted dates on {} documents in {}", converted, collection);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Date migration stopped; it will resume from the last checkpoint on next start", e);
+        }
+    }
+
+    private long migrate(String collection, Object lastId, long converted) throws InterruptedException {
+        Criteria pending = "bookings".equals(collection)
+                ? new Criteria().orOperator(
+                        Criteria.where("createdAt").type(2),
+                        Criteria.where("startsAt").exists(false))
+                : Criteria.where("createdAt").type(2);
+
+        while (!Thread.currentThread().isInterrupted()) {
+            Query q = Query.query(lastId == null ? pending : new Criteria().andOperator(Criteria.where("_id").gt(lastId), pending))
+                    .with(Sort.by("_id"))
+                    .limit(batchSize);
+            q.fields().include("_id", "createdAt", "date", "time");
+            List<Document> batch = mongoTemplate.find(q, Document.class, collection);
+            if (batch.isEmpty()) {
+                saveState(collection, lastId, converted, true);
+                return converted;
+            }
+
+            BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+            int updates = 0;
+            for (Document doc : batch) {
+                Update update = new Update();
+                if (doc.get("createdAt") instanceof String s) {
+                    Instant createdAt = StringToInstantConverter.parse(s);
+                    if (createdAt != null) {
+                        update.set("createdAt", Date.from(createdAt));
+                    }
+                }
+                if ("bookings".equals(collection) && !doc.containsKey("startsAt")) {
+                    Instant startsAt = Booking.startOf(doc.getString("date"), doc.getString("time"));
+                    update.set("startsAt", startsAt == null ? null : Date.from(startsAt));
+                }
+                if (!update.getUpdateObject().isEmpty()) {
+                    ops.updateOne(Query.query(Criteria.where("_id").is(doc.get("_id"))), update);
+                    updates++;
+                }
+            }
+            if (updates > 0) {
+                converted += ops.execute().getModifiedCount();
+            }
+
+            lastId = batch.get(batch.size() - 1).get("_id");
+            saveState(collection, lastId, converted, false);
+            if (pauseMillis > 0) {
+                TimeUnit.MILLISECONDS.sleep(pauseMillis);
+            }
+        }
+        return converted;
+    }
+
+    private Document state(String collection) {
+        Document doc = mongoTemplate.findById(MIGRATION_ID + ":" + collection, Document.class, MIGRATIONS);
+        return doc != null ? doc : new Document();
+    }
+
+    private void saveState(String collection, Object lastId, long converted, boolean done) {
+        Document doc = new Document("_id", MIGRATION_ID + ":" + collection)
+                .append("lastId", lastId)
+                .append("converted", converted)
+                .append("done", done)
+                .append("updatedAt", new Date());
+        mongoTemplate.findAndReplace(
+                Query.query(Criteria.where("_id").is(doc.get("_id"))),
+                doc,
+                FindAndReplaceOptions.options().upsert(),
+                MIGRATIONS
+        );
+    }
+
+    @Override
+    public void destroy() {
+        worker.shutdownNow();
+    }
+}
@@ -0,0 +1,305 @@
+package com.booktrack.service;
+
+import com.booktrack.model.IdempotencyRecord;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * {@code Idempotency-Key} support for non-idempotent POSTs. The first request
+ * for a (scope, user, key) runs the action and stores its JSON response in
+ * {@code idempotency_keys} (expired by a TTL index after
+ * {@code app.idempotency.ttl-hours}); retries get the stored response back.
+ * <p>
+ * Duplicates arriving on the same instance while the first is still running
+ * wait on its in-flight future instead of redoing the work; duplicates on
+ * another instance see the {@code in_progress} record and get a 409. The
+ * record carries a lease of {@code app.idempotency.wait-seconds}: if the
+ * attempt holding it never finishes (its node died, or recording the response
+ * failed), a retry after the lease takes the key over and runs the action
+ * again instead of getting 409s until the record expires. Recently completed
+ * responses are also kept in a small LRU so hot retries skip Mongo. A failed
+ * action releases the key, so the client can retry it. Reusing a key with a
+ * different request is rejected with 422.
+ * <p>
+ * While an action runs, {@link #currentKey()} identifies it, so that calls
+ * to external APIs can carry an idempotency key of their own and a re-run
+ * after a takeover or release does not repeat them (see {@link StripeGateway}).
+ */
+@org.springframework.stereotype.Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private static final ThreadLocal<String> CURRENT_KEY = new ThreadLocal<>();
+
+    private record InFlight(String fingerprint, CompletableFuture<String> response) {
+    }
+
+    private record Completed(String fingerprint, String response, Instant expiresAt) {
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final long waitSeconds;
+    private final Duration lease;
+    private final int maxEntries;
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final LinkedHashMap<String, Completed> recent = new LinkedHashMap<>(16, 0.75f, true);
+    private final Counter executed;
+    private final Counter replayed;
+    private final Counter waited;
+    private final Counter conflicts;
+    private final Counter takeovers;
+
+    public IdempotencyService(
+            MongoTemplate mongoTemplate,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${app.idempotency.ttl-hours:24}") long ttlHours,
+            @Value("${app.idempotency.wait-seconds:30}") long waitSeconds,
+            @Value("${app.idempotency.cache-entries:10000}") int maxEntries
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.waitSeconds = waitSeconds;
+        this.lease = Duration.ofSeconds(waitSeconds);
+        this.maxEntries = maxEntries;
+        this.executed = outcome(meterRegistry, "executed");
+        this.replayed = outcome(meterRegistry, "replayed");
+        this.waited = outcome(meterRegistry, "waited");
+        this.conflicts = outcome(meterRegistry, "conflict");
+        this.takeovers = outcome(meterRegistry, "takeover");
+    }
+
+    /**
+     * The stored key of the idempotent action running on this thread, or
+     * {@code null} outside one.
+     */
+    public static String currentKey() {
+        return CURRENT_KEY.get();
+    }
+
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("idempotency.requests")
+                .description("Requests carrying an Idempotency-Key, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code action} at most once per {@code key}, or directly when no
+     * key was sent. {@code fingerprint} identifies the request payload.
+     */
+    public <T> T execute(
+            String scope,
+            String userId,
+            String key,
+            String fingerprint,
+            TypeReference<T> type,
+            Supplier<T> action
+    ) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, HEADER + " is too long");
+        }
+        String id = IdempotencyRecord.idOf(scope, userId, key);
+
+        Completed cached = recent(id);
+        if (cached != null) {
+            checkFingerprint(cached.fingerprint(), fingerprint);
+            replayed.increment();
+            return read(cached.response(), type);
+        }
+
+        InFlight mine = new InFlight(fingerprint, new CompletableFuture<>());
+        InFlight running = inFlight.putIfAbsent(id, mine);
+        if (running != null) {
+            checkFingerprint(running.fingerprint(), fingerprint);
+            waited.increment();
+            return read(await(running.response()), type);
+        }
+
+        try {
+            String owner = UUID.randomUUID().toString();
+            String response = reserveOrReplay(id, owner, fingerprint);
+            if (response != null) {
+                replayed.increment();
+            } else {
+                response = run(id, owner, action);
+                executed.increment();
+            }
+            remember(id, new Completed(fingerprint, response, Instant.now().plus(ttl)));
+            mine.response().complete(response);
+            return read(response, type);
+        } catch (RuntimeException e) {
+            mine.response().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(id, mine);
+        }
+    }
+
+    /**
+     * Claims the key in Mongo for {@code owner}, taking over an abandoned
+     * claim whose lease has lapsed, or returns the response stored by an
+     * earlier request.
+     */
+    private String reserveOrReplay(String id, String owner, String fingerprint) {
+        Instant now = Instant.now();
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setId(id);
+        record.setFingerprint(fingerprint);
+        record.setState(IdempotencyRecord.IN_PROGRESS);
+        record.setOwner(owner);
+        record.setLeaseUntil(now.plus(lease));
+        record.setCreatedAt(now);
+        record.setExpireAt(now.plus(ttl));
+        try {
+            mongoTemplate.insert(record);
+            return null;
+        } catch (DuplicateKeyException e) {
+            IdempotencyRecord existing = mongoTemplate.findById(id, IdempotencyRecord.class);
+            if (existing == null) {
+                // Released by a failed attempt in the meantime.
+                return reserveOrReplay(id, owner, fingerprint);
+            }
+            checkFingerprint(existing.getFingerprint(), fingerprint);
+            if (IdempotencyRecord.COMPLETED.equals(existing.getState())) {
+                return existing.getResponse();
+            }
+            if (existing.getLeaseUntil() == null || existing.getLeaseUntil().isBefore(now)) {
+                // Conditional on the lease still being lapsed, so that only
+                // one of several concurrent retries wins the takeover.
+                Query stale = Query.query(Criteria.where("_id").is(id)
+                        .and("state").is(IdempotencyRecord.IN_PROGRESS)
+                        .orOperator(Criteria.where("leaseUntil").lt(now), Criteria.where("leaseUntil").exists(false)));
+                IdempotencyRecord previous = mongoTemplate.findAndModify(stale,
+                        Update.update("owner", owner).set("leaseUntil", now.plus(lease)), IdempotencyRecord.class);
+                if (previous != null) {
+                    takeovers.increment();
+                    return null;
+                }
+                // Completed, released or taken over by someone else meanwhile.
+                return reserveOrReplay(id, owner, fingerprint);
+            }
+            conflicts.increment();
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "A request with this " + HEADER + " is still in progress");
+        }
+    }
+
+    private <T> String run(String id, String owner, Supplier<T> action) {
+        Query mine = Query.query(Criteria.where("_id").is(id)
+                .and("state").is(IdempotencyRecord.IN_PROGRESS)
+                .and("owner").is(owner));
+        String response;
+        CURRENT_KEY.set(id);
+        try {
+            response = objectMapper.writeValueAsString(action.get());
+        } catch (JsonProcessingException | RuntimeException e) {
+            mongoTemplate.remove(mine, IdempotencyRecord.class);
+            if (e instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException("Could not serialize idempotent response", e);
+        } finally {
+            CURRENT_KEY.remove();
+        }
+        try {
+            mongoTemplate.updateFirst(mine,
+                    Update.update("state", IdempotencyRecord.COMPLETED).set("response", response).unset("leaseUntil"),
+                    IdempotencyRecord.class);
+        } catch (RuntimeException e) {
+            // The action's effects are done, so answer this request; a retry
+            // landing on another node takes the record over once the lease
+            // lapses.
+            log.warn("Could not record idempotent response for {}", id, e);
+        }
+        return response;
+    }
+
+    private String await(CompletableFuture<String> response) {
+        try {
+            return response.get(waitSeconds, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            conflicts.increment();
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "A request with this " + HEADER + " is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted");
+        }
+    }
+
+    private static void checkFingerprint(String stored, String fingerprint) {
+        if (stored != null && !stored.equals(fingerprint)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    HEADER + " was already used for a different request");
+        }
+    }
+
+    private <T> T read(String json, TypeReference<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response is unreadable", e);
+        }
+    }
+
+    private Completed recent(String id) {
+        synchronized (recent) {
+            Completed c = recent.get(id);
+            if (c != null && c.expiresAt().isBefore(Instant.now())) {
+                recent.remove(id);
+                return null;
+            }
+            return c;
+        }
+    }
+
+    private void remember(String id, Completed completed) {
+        synchronized (recent) {
+            recent.put(id, completed);
+            while (recent.size() > maxEntries) {
+                recent.remove(recent.keySet().iterator().next());
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.booktrack.service;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing {@code int -> int} map for non-negative keys, with keys
+ * and values in two parallel primitive arrays (linear probing, power-of-two
+ * capacity, load factor 1/2). No boxing and no per-entry objects: a map with
+ * {@code n} entries holds roughly {@code 16n} bytes. Not thread safe.
+ */
+public final class IntIntHashMap {
+
+    private static final int EMPTY = -1;
+
+    public interface Visitor {
+        void visit(int key, int value);
+    }
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    public IntIntHashMap() {
+        this(4);
+    }
+
+    public IntIntHashMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The value for {@code key}, or 0 if absent.
+     */
+    public int get(int key) {
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            int k = keys[i];
+            if (k == key) {
+                return values[i];
+            }
+            if (k == EMPTY) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Adds {@code delta} to the value for {@code key} (absent keys count as 0)
+     * and returns the new value.
+     */
+    public int addTo(int key, int delta) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Negative key: " + key);
+        }
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        for (; keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i] += delta;
+            }
+        }
+        keys[i] = key;
+        values[i] = delta;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+        return delta;
+    }
+
+    public void forEach(Visitor visitor) {
+        int[] k = keys;
+        int[] v = values;
+        for (int i = 0; i < k.length; i++) {
+            if (k[i] != EMPTY) {
+                visitor.visit(k[i], v[i]);
+            }
+        }
+    }
+
+    /**
+     * Approximate heap footprint of the two arrays, in bytes.
+     */
+    public long estimatedBytes() {
+        return 2L * keys.length * Integer.BYTES + 32;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        Arrays.fill(keys, EMPTY);
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != EMPTY) {
+                int i = mix(oldKeys[j]) & mask;
+                while (keys[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -4,11 +4,16 @@ import com.booktrack.model.User;
 import com.booktrack.repository.UserRepository;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.nio.charset.StandardCharsets;
+import java.security.Key;
 import java.time.Instant;
 import java.util.Date;
 import java.util.Map;
@@ -18,18 +23,25 @@ import static org.springframework.http.HttpStatus.*;
 @Service
 public class JwtService {
 
-    private final byte[] secretBytes;
+    private static final String VERIFIED_ATTRIBUTE = JwtService.class.getName() + ".verified";
+
+    private final Key signingKey;
+    private final JwtParser parser;
     private final long expirationMillis;
     private final UserRepository userRepository;
+    private final Tracer tracer;
 
     public JwtService(
             @Value("${app.jwt.secret}") String secret,
             @Value("${app.jwt.expiration-minutes}") long expMinutes,
-            UserRepository userRepository
+            UserRepository userRepository,
+            Tracer tracer
     ) {
-        this.secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
         this.expirationMillis = expMinutes * 60_000L;
         this.userRepository = userRepository;
+        this.tracer = tracer;
     }
 
     public String createAccessToken(User user) {
@@ -41,25 +53,80 @@ public class JwtService {
                 .addClaims(Map.of("role", user.getRole()))
                 .setIssuedAt(Date.from(now))
                 .setExpiration(Date.from(exp))
-                .signWith(Keys.hmacShaKeyFor(secretBytes), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public User getCurrentUser(String authorizationHeader) {
+    /**
+     * The user id in the request's bearer token, or {@code null} when it has
+     * none or it does not verify. The outcome is kept on the request, so the
+     * filters and the controller verify each token's signature only once.
+     */
+    public String subjectOf(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null) {
+            return null;
+        }
+        Verified verified = verifyOnce(request.getAttribute(VERIFIED_ATTRIBUTE), header);
+        request.setAttribute(VERIFIED_ATTRIBUTE, verified);
+        return verified.subject();
+    }
+
+    public String parseSubject(String authorizationHeader) {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request == null || authorizationHeader == null) {
+            return verify(authorizationHeader).subjectOrThrow();
+        }
+        Verified verified = verifyOnce(
+                request.getAttribute(VERIFIED_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST), authorizationHeader);
+        request.setAttribute(VERIFIED_ATTRIBUTE, verified, RequestAttributes.SCOPE_REQUEST);
+        return verified.subjectOrThrow();
+    }
+
+    private record Verified(String header, String subject, ResponseStatusException error) {
+
+        String subjectOrThrow() {
+            if (error != null) {
+                throw new ResponseStatusException(error.getStatusCode(), error.getReason());
+            }
+            return subject;
+        }
+    }
+
+    private Verified verifyOnce(Object cached, String authorizationHeader) {
+        return cached instanceof Verified v && v.header().equals(authorizationHeader) ? v : verify(authorizationHeader);
+    }
+
+    private Verified verify(String authorizationHeader) {
+        try {
+            return new Verified(authorizationHeader, verifySignature(authorizationHeader), null);
+        } catch (ResponseStatusException e) {
+            return new Verified(authorizationHeader, null, e);
+        }
+    }
+
+    private String verifySignature(String authorizationHeader) {
         if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
             throw new ResponseStatusException(UNAUTHORIZED, "Missing token");
         }
         String token = authorizationHeader.substring(7);
         try {
-            Jws<Claims> jws = Jwts.parserBuilder()
-                    .setSigningKey(Keys.hmacShaKeyFor(secretBytes))
-                    .build()
-                    .parseClaimsJws(token);
+            Jws<Claims> jws = parser.parseClaimsJws(token);
 
             String userId = jws.getBody().getSubject();
             if (userId == null) {
                 throw new ResponseStatusException(UNAUTHORIZED, "Invalid token");
             }
+            return userId;
+        } catch (JwtException ex) {
+            throw new ResponseStatusException(UNAUTHORIZED, "Invalid token");
+        }
+    }
+
+    public User getCurrentUser(String authorizationHeader) {
+        try (Tracer.Span span = tracer.startSpan("auth current-user", Tracer.Kind.INTERNAL)) {
+            String userId = parseSubject(authorizationHeader);
+            span.tag("enduser.id", userId);
 
             User user = userRepository.findById(userId)
                     .orElseThrow(() -> new ResponseStatusException(UNAUTHORIZED, "User not found"));
@@ -69,8 +136,6 @@ public class JwtService {
             }
 
             return user;
-        } catch (JwtException ex) {
-            throw new ResponseStatusException(UNAUTHORIZED, "Invalid token");
         }
     }
 }
@@ -0,0 +1,294 @@
+package com.booktrack.service;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Groups Mongo commands by query shape (command, collection, filter keys and
+ * sort) and keeps rolling latency and document statistics per shape. Commands
+ * slower than the configured threshold are logged with the controller handler
+ * that issued them.
+ * <p>
+ * Command replies do not carry {@code docsExamined}; the per-shape document
+ * figure is what the server returned or affected ({@code firstBatch} size,
+ * {@code n}), which is the closest signal available without running explain.
+ */
+@Service
+public class MongoQueryProfiler implements CommandListener {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoQueryProfiler.class);
+
+    private static final Set<String> PROFILED = Set.of(
+            "find", "aggregate", "count", "distinct", "update", "delete", "insert", "findAndModify", "getMore"
+    );
+    private static final String OTHER_SHAPE = "(other)";
+
+    private final long slowThresholdNanos;
+    private final int maxShapes;
+    private final int windowSlots;
+    private final long slotMillis;
+    private final Map<String, ShapeStats> shapes = new ConcurrentHashMap<>();
+    private final Map<Long, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    public MongoQueryProfiler(
+            @Value("${app.mongo.profiler.slow-threshold-ms:100}") long slowThresholdMs,
+            @Value("${app.mongo.profiler.max-shapes:1000}") int maxShapes,
+            @Value("${app.mongo.profiler.window-minutes:5}") int windowMinutes
+    ) {
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+        this.maxShapes = maxShapes;
+        this.windowSlots = windowMinutes;
+        this.slotMillis = TimeUnit.MINUTES.toMillis(1);
+    }
+
+    private record InFlight(String shape, String collection, String command, String handler) {
+    }
+
+    private final class ShapeStats {
+        final String shape;
+        final String collection;
+        final String command;
+        final RollingHistogram latency = new RollingHistogram(windowSlots, slotMillis);
+        final LongAdder total = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        volatile String lastHandler;
+
+        ShapeStats(String shape, String collection, String command) {
+            this.shape = shape;
+            this.collection = collection;
+            this.command = command;
+        }
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        String command = event.getCommandName();
+        if (!PROFILED.contains(command)) {
+            return;
+        }
+        BsonDocument cmd = event.getCommand();
+        String collection = collectionOf(command, cmd);
+        inFlight.put(key(event.getConnectionDescription().getConnectionId().getLocalValue(), event.getRequestId()),
+                new InFlight(shapeOf(command, collection, cmd), collection, command, currentHandler()));
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        InFlight f = inFlight.remove(key(event.getConnectionDescription().getConnectionId().getLocalValue(), event.getRequestId()));
+        if (f == null) {
+            return;
+        }
+        long nanos = event.getElapsedTime(TimeUnit.NANOSECONDS);
+        long docs = documentsOf(event.getResponse());
+        ShapeStats stats = statsFor(f);
+        stats.total.increment();
+        stats.latency.record(TimeUnit.NANOSECONDS.toMicros(nanos), docs);
+        stats.lastHandler = f.handler();
+
+        if (nanos >= slowThresholdNanos) {
+            log.warn("Slow Mongo {} on {} took {} ms ({} docs) from {}: {}",
+                    f.command(), f.collection(), TimeUnit.NANOSECONDS.toMillis(nanos), docs, f.handler(), f.shape());
+        }
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        InFlight f = inFlight.remove(key(event.getConnectionDescription().getConnectionId().getLocalValue(), event.getRequestId()));
+        if (f == null) {
+            return;
+        }
+        ShapeStats stats = statsFor(f);
+        stats.total.increment();
+        stats.failures.increment();
+        stats.lastHandler = f.handler();
+    }
+
+    public List<Map<String, Object>> topSlowShapes(int limit) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (ShapeStats s : shapes.values()) {
+            RollingHistogram.Snapshot snap = s.latency.snapshot();
+            if (snap.count() == 0) {
+                continue;
+            }
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("shape", s.shape);
+            m.put("collection", s.collection);
+            m.put("command", s.command);
+            m.put("count", snap.count());
+            m.put("total_count", s.total.sum());
+            m.put("failures", s.failures.sum());
+            m.put("p50_ms", microsToMillis(snap.percentile(50)));
+            m.put("p99_ms", microsToMillis(snap.percentile(99)));
+            m.put("max_ms", microsToMillis(snap.max()));
+            m.put("mean_ms", microsToMillis(Math.round(snap.mean())));
+            m.put("avg_docs", Math.round((double) snap.extra() / snap.count() * 10.0) / 10.0);
+            m.put("last_handler", s.lastHandler);
+            rows.add(m);
+        }
+        rows.sort(Comparator.comparingDouble((Map<String, Object> m) -> (double) m.get("p99_ms")).reversed());
+        return rows.size() > limit ? rows.subList(0, limit) : rows;
+    }
+
+    private ShapeStats statsFor(InFlight f) {
+        ShapeStats stats = shapes.get(f.shape());
+        if (stats != null) {
+            return stats;
+        }
+        if (shapes.size() >= maxShapes) {
+            return shapes.computeIfAbsent(OTHER_SHAPE, k -> new ShapeStats(OTHER_SHAPE, "*", "*"));
+        }
+        return shapes.computeIfAbsent(f.shape(), k -> new ShapeStats(k, f.collection(), f.command()));
+    }
+
+    private static long key(long connectionId, int requestId) {
+        return (connectionId << 32) | (requestId & 0xffffffffL);
+    }
+
+    private static double microsToMillis(long micros) {
+        return Math.round(micros / 10.0) / 100.0;
+    }
+
+    private static String currentHandler() {
+        RequestAttributes attrs = RequestContextHolder.getRequestAttributes();
+        if (attrs != null) {
+            Object handler = attrs.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (handler instanceof HandlerMethod hm) {
+                return hm.getBeanType().getSimpleName() + "#" + hm.getMethod().getName();
+            }
+        }
+        return "thread:" + Thread.currentThread().getName();
+    }
+
+    private static String collectionOf(String command, BsonDocument cmd) {
+        BsonValue v = "getMore".equals(command) ? cmd.get("collection") : cmd.get(command);
+        return v != null && v.isString() ? v.asString().getValue() : "?";
+    }
+
+    static String shapeOf(String command, String collection, BsonDocument cmd) {
+        StringBuilder sb = new StringBuilder(command).append(' ').append(collection);
+        switch (command) {
+            case "find", "count", "distinct" -> {
+                appendPart(sb, "filter", cmd.get("find".equals(command) ? "filter" : "query"));
+                appendPart(sb, "sort", cmd.get("sort"));
+                if (cmd.containsKey("key")) {
+                    sb.append(" key=").append(cmd.getString("key").getValue());
+                }
+            }
+            case "findAndModify" -> {
+                appendPart(sb, "filter", cmd.get("query"));
+                appendPart(sb, "sort", cmd.get("sort"));
+            }
+            case "update", "delete" -> {
+                BsonValue ops = cmd.get("update".equals(command) ? "updates" : "deletes");
+                if (ops != null && ops.isArray() && !ops.asArray().isEmpty()) {
+                    appendPart(sb, "filter", ops.asArray().get(0).asDocument().get("q"));
+                }
+            }
+            case "aggregate" -> {
+                BsonValue pipeline = cmd.get("pipeline");
+                if (pipeline != null && pipeline.isArray()) {
+                    sb.append(" pipeline=[");
+                    for (BsonValue stage : pipeline.asArray()) {
+                        BsonDocument d = stage.asDocument();
+                        String op = d.getFirstKey();
+                        sb.append(op);
+                        if ("$match".equals(op) || "$sort".equals(op)) {
+                            sb.append(normalize(d.get(op), "$sort".equals(op)));
+                        }
+                        sb.append(',');
+                    }
+                    sb.setLength(sb.length() - 1);
+                    sb.append(']');
+                }
+            }
+            default -> {
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void appendPart(StringBuilder sb, String name, BsonValue value) {
+        if (value != null && value.isDocument() && !value.asDocument().isEmpty()) {
+            sb.append(' ').append(name).append('=').append(normalize(value, "sort".equals(name)));
+        }
+    }
+
+    private static String normalize(BsonValue value, boolean keepValues) {
+        if (value.isDocument()) {
+            BsonDocument doc = value.asDocument();
+            Iterable<String> keys = keepValues ? doc.keySet() : new TreeSet<>(doc.keySet());
+            StringBuilder sb = new StringBuilder("{");
+            for (String k : keys) {
+                BsonValue v = doc.get(k);
+                sb.append(k);
+                if (keepValues) {
+                    sb.append(':').append(v.isNumber() ? v.asNumber().intValue() : "?");
+                } else if (v.isDocument() || (v.isArray() && containsDocuments(v.asArray()))) {
+                    sb.append(':').append(normalize(v, false));
+                }
+                sb.append(',');
+            }
+            if (sb.length() > 1) {
+                sb.setLength(sb.length() - 1);
+            }
+            return sb.append('}').toString();
+        }
+        if (value.isArray()) {
+            Set<String> parts = new TreeSet<>();
+            for (BsonValue v : value.asArray()) {
+                parts.add(v.isDocument() ? normalize(v, false) : "?");
+            }
+            return "[" + String.join(",", parts) + "]";
+        }
+        return "?";
+    }
+
+    private static boolean containsDocuments(BsonArray array) {
+        for (BsonValue v : array) {
+            if (v.isDocument()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long documentsOf(BsonDocument reply) {
+        BsonDocument cursor = reply.getDocument("cursor", null);
+        if (cursor != null) {
+            BsonArray batch = cursor.containsKey("firstBatch")
+                    ? cursor.getArray("firstBatch")
+                    : cursor.getArray("nextBatch", new BsonArray());
+            return batch.size();
+        }
+        BsonValue n = reply.get("n");
+        if (n != null && n.isNumber()) {
+            return n.asNumber().longValue();
+        }
+        BsonValue values = reply.get("values");
+        return values != null && values.isArray() ? values.asArray().size() : 0;
+    }
+}
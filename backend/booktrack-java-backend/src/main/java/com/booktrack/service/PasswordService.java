@@ -1,12 +1,17 @@
 package com.booktrack.service;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
 @Service
 public class PasswordService {
 
-    private final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
+    private final BCryptPasswordEncoder encoder;
+
+    public PasswordService(@Value("${app.password.bcrypt-strength:10}") int strength) {
+        this.encoder = new BCryptPasswordEncoder(strength);
+    }
 
     public String hashPassword(String raw) {
         return encoder.encode(raw);
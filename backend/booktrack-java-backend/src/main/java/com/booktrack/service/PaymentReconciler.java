@@ -0,0 +1,350 @@
+package com.booktrack.service;
+
+import com.booktrack.model.Booking;
+import com.booktrack.model.PaymentTransaction;
+import com.stripe.model.checkout.Session;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves checkout transactions whose webhook never arrived and whose client
+ * never polled {@code checkout-status}. Every {@code app.payments.reconcile.interval-minutes}
+ * it pages through transactions still {@code pending} after
+ * {@code min-age-minutes}, oldest first, and retrieves their Stripe sessions
+ * with at most {@code concurrency} calls in flight. Paid sessions mark the
+ * transaction and its booking paid; expired sessions mark the transaction
+ * expired, giving it the same {@code expireAt} as {@link PendingExpiryService}.
+ * <p>
+ * Each page is applied with one bulk write for the transactions and one per
+ * provider for the bookings, the latter on the provider's
+ * {@link ProviderLanes} lane. Writes re-check the pending state, so a webhook
+ * landing mid-run is not counted twice; a paid transition also applies to a
+ * transaction the expiry sweep has just expired, and clears its
+ * {@code expireAt}. The outcome of the last run is kept as a report for
+ * {@code GET /api/admin/payments/reconciliation}.
+ */
+@org.springframework.stereotype.Service
+public class PaymentReconciler implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentReconciler.class);
+
+    private static final String PENDING = "pending";
+    private static final String PAID = "paid";
+    private static final String EXPIRED = "expired";
+    private static final int MAX_REPORTED_FAILURES = 20;
+
+    private final MongoTemplate mongoTemplate;
+    private final StripeGateway stripeGateway;
+    private final ProviderLanes providerLanes;
+    private final ProviderRollupService providerRollups;
+    private final BookingSocketService bookingSocketService;
+    private final boolean enabled;
+    private final Duration minAge;
+    private final Duration paymentRetention;
+    private final int pageSize;
+    private final long intervalMinutes;
+    private final Timer runs;
+    private final Counter paidAfterExpiry;
+    private final MeterRegistry meterRegistry;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Map<String, Object> lastReport;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "payment-reconciler");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ExecutorService fetchers;
+
+    public PaymentReconciler(
+            MongoTemplate mongoTemplate,
+            StripeGateway stripeGateway,
+            ProviderLanes providerLanes,
+            ProviderRollupService providerRollups,
+            BookingSocketService bookingSocketService,
+            MeterRegistry meterRegistry,
+            @Value("${app.payments.reconcile.enabled:true}") boolean enabled,
+            @Value("${app.payments.reconcile.min-age-minutes:10}") long minAgeMinutes,
+            @Value("${app.expiry.payment-retention-days:30}") long paymentRetentionDays,
+            @Value("${app.payments.reconcile.page-size:100}") int pageSize,
+            @Value("${app.payments.reconcile.concurrency:4}") int concurrency,
+            @Value("${app.payments.reconcile.interval-minutes:15}") long intervalMinutes
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.stripeGateway = stripeGateway;
+        this.providerLanes = providerLanes;
+        this.providerRollups = providerRollups;
+        this.bookingSocketService = bookingSocketService;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.minAge = Duration.ofMinutes(minAgeMinutes);
+        this.paymentRetention = Duration.ofDays(paymentRetentionDays);
+        this.pageSize = pageSize;
+        this.intervalMinutes = intervalMinutes;
+        this.runs = Timer.builder("payments.reconcile")
+                .description("Duration of a payment reconciliation run")
+                .register(meterRegistry);
+        this.paidAfterExpiry = Counter.builder("payments.paid_after_expiry")
+                .description("Bookings paid after the expiry sweep had expired them, restored to pending")
+                .register(meterRegistry);
+        AtomicInteger threads = new AtomicInteger();
+        this.fetchers = Executors.newFixedThreadPool(Math.max(1, concurrency), r -> {
+            Thread t = new Thread(r, "payment-reconcile-fetch-" + threads.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            scheduler.scheduleWithFixedDelay(() -> {
+                if (running.compareAndSet(false, true)) {
+                    run();
+                }
+            }, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Starts a run in the background unless one is already in progress.
+     */
+    public boolean reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        scheduler.execute(this::run);
+        return true;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * The report of the last completed run, or {@code null} before the first.
+     */
+    public Map<String, Object> lastReport() {
+        return lastReport;
+    }
+
+    private void run() {
+        long start = System.nanoTime();
+        try {
+            Map<String, Object> report = reconcileNow(Instant.now().truncatedTo(ChronoUnit.MILLIS));
+            lastReport = report;
+            if ((int) report.get("paid") > 0 || (int) report.get("expired") > 0 || (int) report.get("failed") > 0) {
+                log.info("Payment reconciliation: {} paid, {} expired, {} failed of {} pending",
+                        report.get("paid"), report.get("expired"), report.get("failed"), report.get("scanned"));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Payment reconciliation failed; retrying next interval", e);
+        } finally {
+            runs.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            running.set(false);
+        }
+    }
+
+    private Map<String, Object> reconcileNow(Instant now) {
+        Instant started = Instant.now();
+        Criteria pending = Criteria.where("paymentStatus").is(PENDING).and("createdAt").lt(now.minus(minAge));
+        int scanned = 0;
+        int paid = 0;
+        int expired = 0;
+        int open = 0;
+        int bookingsPaid = 0;
+        List<Map<String, Object>> failures = new ArrayList<>();
+        int failed = 0;
+
+        PaymentTransaction last = null;
+        while (!Thread.currentThread().isInterrupted()) {
+            Criteria page = last == null ? pending : new Criteria().andOperator(pending, new Criteria().orOperator(
+                    Criteria.where("createdAt").gt(last.getCreatedAt()),
+                    Criteria.where("createdAt").is(last.getCreatedAt()).and("mongoId").gt(last.getMongoId())));
+            List<PaymentTransaction> batch = mongoTemplate.find(
+                    Query.query(page).with(Sort.by("createdAt", "mongoId")).limit(pageSize),
+                    PaymentTransaction.class);
+            if (batch.isEmpty()) {
+                break;
+            }
+            scanned += batch.size();
+            last = batch.get(batch.size() - 1);
+
+            List<Future<Session>> sessions = new ArrayList<>(batch.size());
+            for (PaymentTransaction tx : batch) {
+                sessions.add(fetchers.submit(() -> stripeGateway.retrieveSession(tx.getSessionId())));
+            }
+
+            List<PaymentTransaction> nowPaid = new ArrayList<>();
+            List<PaymentTransaction> nowExpired = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                PaymentTransaction tx = batch.get(i);
+                Session session;
+                try {
+                    session = sessions.get(i).get();
+                } catch (ExecutionException e) {
+                    failed++;
+                    if (failures.size() < MAX_REPORTED_FAILURES) {
+                        Map<String, Object> f = new LinkedHashMap<>();
+                        f.put("session_id", tx.getSessionId());
+                        f.put("error", String.valueOf(e.getCause().getMessage()));
+                        failures.add(f);
+                    }
+                    continue;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                if ("complete".equalsIgnoreCase(session.getStatus()) && PAID.equalsIgnoreCase(session.getPaymentStatus())) {
+                    nowPaid.add(tx);
+                } else if (EXPIRED.equalsIgnoreCase(session.getStatus())) {
+                    nowExpired.add(tx);
+                } else {
+                    open++;
+                }
+            }
+
+            paid += updateTransactions(nowPaid, List.of(PENDING, EXPIRED),
+                    Update.update("paymentStatus", PAID).unset("expireAt"));
+            expired += updateTransactions(nowExpired, List.of(PENDING),
+                    Update.update("paymentStatus", EXPIRED).set("expireAt", now.plus(paymentRetention)));
+            bookingsPaid += markBookingsPaid(nowPaid.stream().map(PaymentTransaction::getBookingId).distinct().toList());
+
+            if (batch.size() < pageSize) {
+                break;
+            }
+        }
+
+        count("paid", paid);
+        count("expired", expired);
+        count("open", open);
+        count("failed", failed);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("started_at", started);
+        report.put("finished_at", Instant.now());
+        report.put("scanned", scanned);
+        report.put("paid", paid);
+        report.put("expired", expired);
+        report.put("still_open", open);
+        report.put("failed", failed);
+        report.put("bookings_marked_paid", bookingsPaid);
+        report.put("failures", failures);
+        return report;
+    }
+
+    /**
+     * A paid session wins over an expiry the sweep recorded since this page
+     * was read; an expired one only replaces {@code pending}.
+     */
+    private int updateTransactions(List<PaymentTransaction> txs, List<String> from, Update update) {
+        if (txs.isEmpty()) {
+            return 0;
+        }
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PaymentTransaction.class);
+        for (PaymentTransaction tx : txs) {
+            ops.updateOne(Query.query(Criteria.where("id").is(tx.getId()).and("paymentStatus").in(from)), update);
+        }
+        return ops.execute().getModifiedCount();
+    }
+
+    /**
+     * Marks the bookings paid, each provider's share on its lane, and returns
+     * how many changed. A booking the expiry sweep expired while its checkout
+     * was still open goes back to {@code pending} so its provider can accept
+     * or reject it; that is logged and counted, since the customer has paid
+     * for a booking that had lapsed.
+     */
+    public int markBookingsPaid(List<String> bookingIds) {
+        if (bookingIds.isEmpty()) {
+            return 0;
+        }
+        Query owners = Query.query(Criteria.where("id").in(bookingIds));
+        owners.fields().include("id", "providerId");
+        Map<String, List<String>> byProvider = mongoTemplate.find(owners, Booking.class).stream()
+                .collect(Collectors.groupingBy(b -> String.valueOf(b.getProviderId()), LinkedHashMap::new,
+                        Collectors.mapping(Booking::getId, Collectors.toList())));
+
+        int marked = 0;
+        for (Map.Entry<String, List<String>> e : byProvider.entrySet()) {
+            marked += providerLanes.run(e.getKey(), () -> {
+                List<Booking> unpaid = mongoTemplate.find(
+                        Query.query(Criteria.where("id").in(e.getValue()).and("paymentStatus").ne(PAID)), Booking.class);
+                if (unpaid.isEmpty()) {
+                    return 0;
+                }
+                BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Booking.class);
+                for (Booking b : unpaid) {
+                    Update update = Update.update("paymentStatus", PAID);
+                    if (EXPIRED.equals(b.getStatus())) {
+                        update.set("status", PENDING).unset("expiredAt");
+                    }
+                    ops.updateOne(Query.query(Criteria.where("id").is(b.getId())
+                            .and("paymentStatus").ne(PAID).and("status").is(b.getStatus())), update);
+                }
+                int n = ops.execute().getModifiedCount();
+                providerRollups.recordPaid(unpaid);
+
+                List<ProviderRollupService.StatusChange> revived = new ArrayList<>();
+                List<Map<String, String>> notifications = new ArrayList<>();
+                for (Booking b : unpaid) {
+                    if (EXPIRED.equals(b.getStatus())) {
+                        log.warn("Booking {} was paid after it expired; restored to pending", b.getId());
+                        b.setStatus(PENDING);
+                        b.setExpiredAt(null);
+                        revived.add(new ProviderRollupService.StatusChange(b, EXPIRED));
+                        notifications.add(BookingSocketService.statusPayload(b.getId(), PENDING));
+                    }
+                }
+                providerRollups.recordStatusChanges(revived);
+                bookingSocketService.emitBookingStatusUpdates(notifications);
+                paidAfterExpiry.increment(revived.size());
+                return n;
+            });
+        }
+        return marked;
+    }
+
+    private void count(String outcome, int n) {
+        Counter.builder("payments.reconciled")
+                .description("Pending payment transactions examined by the reconciler, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment(n);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+        fetchers.shutdownNow();
+    }
+}
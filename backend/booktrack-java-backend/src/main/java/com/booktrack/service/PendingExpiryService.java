@@ -0,0 +1,223 @@
+package com.booktrack.service;
+
+import com.booktrack.model.Booking;
+import com.booktrack.model.PaymentTransaction;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Expires abandoned work so it stops piling up: bookings that were never
+ * accepted and are older than {@code app.expiry.pending-booking-hours} (or
+ * whose start time is more than {@code app.expiry.start-grace-hours} past)
+ * move to {@code expired}, and checkout transactions still pending after
+ * {@code app.expiry.pending-payment-hours} are marked {@code expired} and
+ * given an {@code expireAt}, after which Mongo's TTL monitor drops them.
+ * Expired bookings are kept as history. {@code startsAt} reads the
+ * customer's local date and time as UTC, so the grace defaults to 12 hours,
+ * which covers every zone west of UTC.
+ * <p>
+ * Each sweep works in batches of {@code app.expiry.batch-size} picked through
+ * the {@code (status, paymentStatus, createdAt)} and
+ * {@code (paymentStatus, createdAt)} indexes. Updates re-check the pending
+ * state, so a booking accepted mid-sweep, or expired by another instance, is
+ * left alone. Each provider's share of a batch is written on its
+ * {@link ProviderLanes} lane.
+ */
+@org.springframework.stereotype.Service
+public class PendingExpiryService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PendingExpiryService.class);
+
+    private static final String PENDING = "pending";
+    private static final String EXPIRED = "expired";
+
+    private final MongoTemplate mongoTemplate;
+    private final BookingSocketService bookingSocketService;
+    private final ProviderRollupService providerRollups;
+    private final ProviderLanes providerLanes;
+    private final boolean enabled;
+    private final Duration bookingAge;
+    private final Duration startGrace;
+    private final Duration paymentAge;
+    private final Duration paymentRetention;
+    private final int batchSize;
+    private final long intervalMinutes;
+    private final Timer sweeps;
+    private final DistributionSummary bookingsReclaimed;
+    private final DistributionSummary paymentsReclaimed;
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "pending-expiry");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public PendingExpiryService(
+            MongoTemplate mongoTemplate,
+            BookingSocketService bookingSocketService,
+            ProviderRollupService providerRollups,
+            ProviderLanes providerLanes,
+            MeterRegistry meterRegistry,
+            @Value("${app.expiry.enabled:true}") boolean enabled,
+            @Value("${app.expiry.pending-booking-hours:72}") long bookingHours,
+            @Value("${app.expiry.start-grace-hours:12}") long startGraceHours,
+            @Value("${app.expiry.pending-payment-hours:48}") long paymentHours,
+            @Value("${app.expiry.payment-retention-days:30}") long paymentRetentionDays,
+            @Value("${app.expiry.batch-size:500}") int batchSize,
+            @Value("${app.expiry.interval-minutes:15}") long intervalMinutes
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.bookingSocketService = bookingSocketService;
+        this.providerRollups = providerRollups;
+        this.providerLanes = providerLanes;
+        this.enabled = enabled;
+        this.bookingAge = Duration.ofHours(bookingHours);
+        this.startGrace = Duration.ofHours(startGraceHours);
+        this.paymentAge = Duration.ofHours(paymentHours);
+        this.paymentRetention = Duration.ofDays(paymentRetentionDays);
+        this.batchSize = batchSize;
+        this.intervalMinutes = intervalMinutes;
+        this.sweeps = Timer.builder("expiry.sweep")
+                .description("Duration of a pending booking/payment expiry sweep")
+                .register(meterRegistry);
+        this.bookingsReclaimed = DistributionSummary.builder("expiry.sweep.reclaimed")
+                .description("Documents expired per sweep")
+                .tag("collection", "bookings")
+                .register(meterRegistry);
+        this.paymentsReclaimed = DistributionSummary.builder("expiry.sweep.reclaimed")
+                .description("Documents expired per sweep")
+                .tag("collection", "payment_transactions")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            sweeper.scheduleWithFixedDelay(this::sweep, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    void sweep() {
+        long start = System.nanoTime();
+        try {
+            Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+            long bookings = expireBookings(now);
+            long payments = expirePayments(now);
+            bookingsReclaimed.record(bookings);
+            paymentsReclaimed.record(payments);
+            if (bookings > 0 || payments > 0) {
+                log.info("Expired {} pending bookings and {} pending payment transactions", bookings, payments);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Pending expiry sweep failed; retrying next interval", e);
+        } finally {
+            sweeps.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private long expireBookings(Instant now) {
+        Criteria stale = Criteria.where("status").is(PENDING)
+                .and("paymentStatus").is(PENDING)
+                .orOperator(
+                        Criteria.where("createdAt").lt(now.minus(bookingAge)),
+                        Criteria.where("startsAt").lt(now.minus(startGrace)));
+        long expired = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Booking> batch = mongoTemplate.find(Query.query(stale).with(Sort.by("createdAt")).limit(batchSize), Booking.class);
+            if (batch.isEmpty()) {
+                break;
+            }
+            Map<String, List<Booking>> byProvider = batch.stream()
+                    .collect(Collectors.groupingBy(b -> String.valueOf(b.getProviderId()), LinkedHashMap::new, Collectors.toList()));
+            for (Map.Entry<String, List<Booking>> e : byProvider.entrySet()) {
+                expired += providerLanes.run(e.getKey(), () -> expire(e.getValue(), now));
+            }
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Expires one provider's share of a batch; runs on that provider's lane.
+     */
+    private int expire(List<Booking> bookings, Instant now) {
+        List<String> ids = bookings.stream().map(Booking::getId).toList();
+        // expiredAt doubles as this sweep's marker, telling apart the
+        // bookings it actually changed from ones that moved on meanwhile.
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("id").in(ids).and("status").is(PENDING).and("paymentStatus").is(PENDING)),
+                Update.update("status", EXPIRED).set("expiredAt", now),
+                Booking.class);
+        Query mine = Query.query(Criteria.where("id").in(ids).and("status").is(EXPIRED).and("expiredAt").is(now));
+        mine.fields().include("id");
+        Set<String> changed = new HashSet<>();
+        mongoTemplate.find(mine, Booking.class).forEach(b -> changed.add(b.getId()));
+
+        List<ProviderRollupService.StatusChange> changes = new ArrayList<>();
+        List<Map<String, String>> notifications = new ArrayList<>();
+        for (Booking b : bookings) {
+            if (changed.contains(b.getId())) {
+                b.setStatus(EXPIRED);
+                b.setExpiredAt(now);
+                changes.add(new ProviderRollupService.StatusChange(b, PENDING));
+                notifications.add(BookingSocketService.statusPayload(b.getId(), EXPIRED));
+            }
+        }
+        providerRollups.recordStatusChanges(changes);
+        bookingSocketService.emitBookingStatusUpdates(notifications);
+        return changed.size();
+    }
+
+    private long expirePayments(Instant now) {
+        Criteria stale = Criteria.where("paymentStatus").is(PENDING).and("createdAt").lt(now.minus(paymentAge));
+        long expired = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            Query q = Query.query(stale).with(Sort.by("createdAt")).limit(batchSize);
+            q.fields().include("id");
+            List<String> ids = mongoTemplate.find(q, PaymentTransaction.class).stream().map(PaymentTransaction::getId).toList();
+            if (ids.isEmpty()) {
+                break;
+            }
+            expired += mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("id").in(ids).and("paymentStatus").is(PENDING)),
+                    Update.update("paymentStatus", EXPIRED).set("expireAt", now.plus(paymentRetention)),
+                    PaymentTransaction.class).getModifiedCount();
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+        return expired;
+    }
+
+    @Override
+    public void destroy() {
+        sweeper.shutdownNow();
+    }
+}
@@ -0,0 +1,138 @@
+package com.booktrack.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Single-writer lanes for booking mutations. Each provider id hashes to one of
+ * {@code app.lanes.count} single-threaded executors, so every state change to
+ * that provider's bookings runs in submission order on one thread and the
+ * read-modify-write sequences in the controller need no locks, while
+ * different providers proceed in parallel on other lanes.
+ * <p>
+ * Callers block until their task has run. Lane queues are bounded by
+ * {@code app.lanes.queue-capacity}; a full lane answers 503 instead of
+ * queueing without limit. A task submitted from a lane's own thread runs
+ * inline, so lane work may itself call {@link #run} for the same provider;
+ * it must not wait on another provider's lane.
+ */
+@org.springframework.stereotype.Service
+public class ProviderLanes implements DisposableBean {
+
+    private static final ThreadLocal<Integer> CURRENT_LANE = ThreadLocal.withInitial(() -> -1);
+
+    private final ThreadPoolExecutor[] lanes;
+    private final Tracer tracer;
+    private final Timer queued;
+    private final Timer executed;
+
+    public ProviderLanes(
+            MeterRegistry meterRegistry,
+            Tracer tracer,
+            @Value("${app.lanes.count:16}") int count,
+            @Value("${app.lanes.queue-capacity:1000}") int queueCapacity
+    ) {
+        this.tracer = tracer;
+        this.lanes = new ThreadPoolExecutor[Math.max(1, count)];
+        for (int i = 0; i < lanes.length; i++) {
+            int index = i;
+            ThreadPoolExecutor lane = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), r -> {
+                        Thread t = new Thread(() -> {
+                            CURRENT_LANE.set(index);
+                            r.run();
+                        }, "provider-lane-" + index);
+                        t.setDaemon(true);
+                        return t;
+                    });
+            lanes[i] = lane;
+            Gauge.builder("lanes.queue.depth", lane, l -> l.getQueue().size())
+                    .description("Tasks waiting in a provider lane")
+                    .tag("lane", String.valueOf(i))
+                    .register(meterRegistry);
+        }
+        this.queued = Timer.builder("lanes.task.wait")
+                .description("Time a booking mutation waited in its provider lane")
+                .register(meterRegistry);
+        this.executed = Timer.builder("lanes.task.duration")
+                .description("Time a booking mutation ran on its provider lane")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code action} on the lane owning {@code providerId} and returns its
+     * result, rethrowing whatever it threw.
+     */
+    public <T> T run(String providerId, Supplier<T> action) {
+        int index = Math.floorMod(String.valueOf(providerId).hashCode(), lanes.length);
+        if (CURRENT_LANE.get() == index) {
+            return action.get();
+        }
+        ThreadPoolExecutor lane = lanes[index];
+
+        long submitted = System.nanoTime();
+        // The span is thread-local; hand the caller's to the lane so that the
+        // lane's Mongo commands and emits land in the same trace.
+        Tracer.Span caller = tracer.current();
+        Future<T> result;
+        try {
+            result = lane.submit(() -> {
+                long started = System.nanoTime();
+                queued.record(started - submitted, TimeUnit.NANOSECONDS);
+                try (Tracer.Span span = tracer.startSpan(caller, "provider-lane", Tracer.Kind.INTERNAL)) {
+                    span.tag("lane", index).tag("lane.wait_ms", (started - submitted) / 1_000_000);
+                    return action.get();
+                } finally {
+                    executed.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many pending booking changes, retry later");
+        }
+
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            if (e.getCause() instanceof Error err) {
+                throw err;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted");
+        }
+    }
+
+    /**
+     * Convenience for lane work without a result.
+     */
+    public void execute(String providerId, Runnable action) {
+        run(providerId, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    @Override
+    public void destroy() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+    }
+}
@@ -0,0 +1,474 @@
+package com.booktrack.service;
+
+import com.booktrack.model.Booking;
+import com.booktrack.model.ProviderRollup;
+import com.booktrack.repository.BookingRepositoryCustom;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Maintains {@code provider_rollups}: daily and monthly buckets per provider,
+ * both for all of its services and per service, holding booking counts by
+ * status and paid totals. Buckets are keyed by the booking's creation day
+ * (UTC), so every change to a booking lands in the same buckets and a rebuild
+ * from {@code bookings} and {@code bookings_archive} reproduces the
+ * incremental result exactly.
+ * <p>
+ * Incremental updates are unordered upserts issued after the booking write;
+ * a failed rollup write is logged rather than failing the request, and
+ * {@link #rebuild()} repairs any drift. Every increment also bumps the
+ * bucket's {@code version}, which is what lets a rebuild run against live
+ * traffic.
+ */
+@org.springframework.stereotype.Service
+public class ProviderRollupService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ProviderRollupService.class);
+
+    private static final String COLLECTION = "provider_rollups";
+    private static final String MIGRATIONS = "migrations";
+    private static final String LEASE_ID = "provider-rollups-rebuild";
+    private static final Duration LEASE = Duration.ofMinutes(5);
+    private static final int REBUILD_CHUNK = 1000;
+    private static final int REPAIR_ATTEMPTS = 5;
+
+    public enum Granularity {
+        DAY("day"), MONTH("month");
+
+        private final String value;
+
+        Granularity(String value) {
+            this.value = value;
+        }
+
+        public String value() {
+            return value;
+        }
+
+        public String periodOf(Instant instant) {
+            LocalDate day = instant.atZone(ZoneOffset.UTC).toLocalDate();
+            return this == DAY ? day.toString() : YearMonth.from(day).toString();
+        }
+
+        public Instant startOf(String period) {
+            LocalDate day = this == DAY ? LocalDate.parse(period) : YearMonth.parse(period).atDay(1);
+            return day.atStartOfDay(ZoneOffset.UTC).toInstant();
+        }
+
+        public Instant endOf(String period) {
+            LocalDate day = this == DAY ? LocalDate.parse(period).plusDays(1) : YearMonth.parse(period).plusMonths(1).atDay(1);
+            return day.atStartOfDay(ZoneOffset.UTC).toInstant();
+        }
+
+        public static Granularity parse(String value) {
+            for (Granularity g : values()) {
+                if (g.value.equalsIgnoreCase(value)) {
+                    return g;
+                }
+            }
+            throw new IllegalArgumentException("Unknown granularity: " + value);
+        }
+    }
+
+    public record StatusChange(Booking booking, String from) {
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "provider-rollup-rebuild");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public ProviderRollupService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public void recordCreated(Booking booking) {
+        write(List.of(booking), b -> b, b -> new Update()
+                .inc("bookings", 1)
+                .inc("statusCounts." + statusKey(b.getStatus()), 1));
+    }
+
+    /**
+     * Moves each booking from its previous status to its current one.
+     */
+    public void recordStatusChanges(List<StatusChange> changes) {
+        List<StatusChange> effective = changes.stream()
+                .filter(c -> !statusKey(c.from()).equals(statusKey(c.booking().getStatus())))
+                .toList();
+        write(effective, StatusChange::booking, c -> new Update()
+                .inc("statusCounts." + statusKey(c.from()), -1)
+                .inc("statusCounts." + statusKey(c.booking().getStatus()), 1));
+    }
+
+    public void recordPaid(Booking booking) {
+        recordPaid(List.of(booking));
+    }
+
+    public void recordPaid(List<Booking> bookings) {
+        write(bookings, b -> b, b -> new Update()
+                .inc("paidCount", 1)
+                .inc("paidAmount", b.getAmount()));
+    }
+
+    /**
+     * Reads the provider-wide and per-service buckets for {@code from..to}
+     * (inclusive, as periods of the given granularity).
+     */
+    public List<ProviderRollup> find(String providerId, Granularity granularity, String from, String to) {
+        Query q = Query.query(Criteria.where("providerId").is(providerId)
+                        .and("granularity").is(granularity.value())
+                        .and("period").gte(from).lte(to))
+                .with(Sort.by("period"));
+        return mongoTemplate.find(q, ProviderRollup.class, COLLECTION);
+    }
+
+    /**
+     * Only warns: rebuilding here would race the increments of a deployment
+     * that is already taking traffic on other instances.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warnIfEmpty() {
+        if (mongoTemplate.estimatedCount(COLLECTION) == 0 && mongoTemplate.estimatedCount("bookings") > 0) {
+            log.warn("{} is empty but bookings exist; run POST /api/admin/rollups/rebuild to backfill it", COLLECTION);
+        }
+    }
+
+    /**
+     * Recomputes every bucket from {@code bookings} in place while increments
+     * keep flowing. Bucket versions are read before the bookings scan and each
+     * bucket is replaced only if its version is unchanged; a bucket some
+     * instance incremented meanwhile is recomputed on its own and retried. One
+     * rebuild runs per cluster, guarded by a lease in {@code migrations}.
+     * <p>
+     * The booking write and its rollup increment are not atomic, so a change
+     * whose increment lands between a bucket's recompute and its replacement
+     * is counted twice; that window is one Mongo round trip wide.
+     *
+     * @return {@code false} if a rebuild is already running on any instance
+     */
+    public boolean rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        String runId = UUID.randomUUID().toString();
+        if (!acquireLease(runId)) {
+            rebuilding.set(false);
+            return false;
+        }
+        rebuilder.execute(() -> {
+            try {
+                long start = System.nanoTime();
+                int buckets = rebuildNow(runId);
+                log.info("Rebuilt {} provider rollup buckets in {} ms", buckets, (System.nanoTime() - start) / 1_000_000);
+            } catch (RuntimeException e) {
+                log.error("Provider rollup rebuild failed", e);
+            } finally {
+                releaseLease(runId);
+                rebuilding.set(false);
+            }
+        });
+        return true;
+    }
+
+    public boolean isRebuilding() {
+        return rebuilding.get();
+    }
+
+    private int rebuildNow(String runId) {
+        // Versions first: a bucket incremented after this read no longer
+        // matches below, whatever the scan saw of its bookings.
+        Map<String, ProviderRollup> existing = new HashMap<>();
+        Query versions = new Query();
+        versions.fields().include("providerId", "serviceId", "granularity", "period", "version");
+        try (Stream<ProviderRollup> stream = mongoTemplate.stream(versions, ProviderRollup.class, COLLECTION)) {
+            stream.forEach(r -> existing.put(r.getId(), r));
+        }
+
+        Map<String, ProviderRollup> buckets = new HashMap<>();
+        accumulate(new Criteria(), buckets);
+
+        Set<String> ids = new LinkedHashSet<>(buckets.keySet());
+        ids.addAll(existing.keySet());
+        List<String> conflicts = new ArrayList<>();
+        List<String> chunk = new ArrayList<>(REBUILD_CHUNK);
+        for (String id : ids) {
+            chunk.add(id);
+            if (chunk.size() == REBUILD_CHUNK) {
+                conflicts.addAll(replace(chunk, buckets, existing, runId));
+                chunk.clear();
+                renewLease(runId);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            conflicts.addAll(replace(chunk, buckets, existing, runId));
+        }
+
+        int unresolved = 0;
+        for (String id : conflicts) {
+            if (!repair(buckets.containsKey(id) ? buckets.get(id) : existing.get(id), runId)) {
+                unresolved++;
+            }
+        }
+        if (unresolved > 0) {
+            log.warn("{} of {} busy provider rollup buckets kept changing during the rebuild and were left as they are",
+                    unresolved, conflicts.size());
+        }
+
+        mongoTemplate.indexOps(COLLECTION).ensureIndex(new Index()
+                .on("providerId", Sort.Direction.ASC)
+                .on("granularity", Sort.Direction.ASC)
+                .on("period", Sort.Direction.ASC)
+                .named("providerId_granularity_period"));
+        return buckets.size();
+    }
+
+    /**
+     * Replaces (or removes) each bucket of the chunk if its version still
+     * matches and returns the ids that changed in between, found by reading
+     * back which buckets carry this run's marker.
+     */
+    private List<String> replace(List<String> ids, Map<String, ProviderRollup> buckets,
+                                 Map<String, ProviderRollup> existing, String runId) {
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, COLLECTION);
+        for (String id : ids) {
+            ProviderRollup known = existing.get(id);
+            Query q = matching(id, known == null ? 0 : known.getVersion());
+            ProviderRollup r = buckets.get(id);
+            if (r == null) {
+                ops.remove(q);
+            } else {
+                ops.upsert(q, replacement(r, runId));
+            }
+        }
+        try {
+            ops.execute();
+        } catch (BulkOperationException e) {
+            // Upserts of buckets created meanwhile fail on the _id; they are
+            // picked up as conflicts below.
+            if (e.getErrors().stream().anyMatch(err -> err.getCode() != 11000)) {
+                throw e;
+            }
+        }
+
+        Query back = Query.query(Criteria.where("_id").in(ids));
+        back.fields().include("rebuild");
+        Map<String, String> markers = new HashMap<>();
+        for (Document d : mongoTemplate.find(back, Document.class, COLLECTION)) {
+            markers.put(d.getString("_id"), String.valueOf(d.getString("rebuild")));
+        }
+        return ids.stream()
+                .filter(id -> buckets.containsKey(id) ? !runId.equals(markers.get(id)) : markers.containsKey(id))
+                .toList();
+    }
+
+    /**
+     * Recomputes a single bucket from its bookings and replaces it under the
+     * same version check, retrying while writers keep moving it.
+     */
+    private boolean repair(ProviderRollup key, String runId) {
+        Granularity g = Granularity.parse(key.getGranularity());
+        Criteria bookings = Criteria.where("providerId").is(key.getProviderId())
+                .and("createdAt").gte(g.startOf(key.getPeriod())).lt(g.endOf(key.getPeriod()));
+        if (!ProviderRollup.ALL_SERVICES.equals(key.getServiceId())) {
+            bookings = bookings.and("serviceId").is(key.getServiceId());
+        }
+        for (int attempt = 0; attempt < REPAIR_ATTEMPTS; attempt++) {
+            ProviderRollup before = mongoTemplate.findById(key.getId(), ProviderRollup.class, COLLECTION);
+            Map<String, ProviderRollup> buckets = new HashMap<>();
+            accumulate(bookings, buckets);
+            ProviderRollup r = buckets.get(key.getId());
+            Query q = matching(key.getId(), before == null ? 0 : before.getVersion());
+            try {
+                if (r == null) {
+                    if (before == null || mongoTemplate.remove(q, COLLECTION).getDeletedCount() > 0) {
+                        return true;
+                    }
+                } else {
+                    UpdateResult result = mongoTemplate.upsert(q, replacement(r, runId), COLLECTION);
+                    if (result.getMatchedCount() > 0 || result.getUpsertedId() != null) {
+                        return true;
+                    }
+                }
+            } catch (DuplicateKeyException e) {
+                // Created by an increment since the read; go again.
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds every booking matching {@code criteria} to its buckets. A booking
+     * updated after archiving can briefly sit in both collections; the hot
+     * copy is read first and wins.
+     */
+    private void accumulate(Criteria criteria, Map<String, ProviderRollup> buckets) {
+        Query q = Query.query(criteria);
+        q.fields().include("providerId", "serviceId", "status", "paymentStatus", "amount", "createdAt");
+        Set<String> hot = new HashSet<>();
+        for (String collection : List.of("bookings", BookingRepositoryCustom.ARCHIVE_COLLECTION)) {
+            boolean archive = !"bookings".equals(collection);
+            try (Stream<Booking> stream = mongoTemplate.stream(q, Booking.class, collection)) {
+                stream.filter(b -> b.getProviderId() != null && b.getCreatedAt() != null)
+                        .filter(b -> archive ? !hot.contains(b.getMongoId()) : hot.add(b.getMongoId()))
+                        .forEach(b -> {
+                            for (ProviderRollup r : bucketsOf(b, buckets)) {
+                                r.setBookings(r.getBookings() + 1);
+                                r.getStatusCounts().merge(statusKey(b.getStatus()), 1L, Long::sum);
+                                if ("paid".equals(b.getPaymentStatus())) {
+                                    r.setPaidCount(r.getPaidCount() + 1);
+                                    r.setPaidAmount(r.getPaidAmount() + b.getAmount());
+                                }
+                            }
+                        });
+            }
+        }
+    }
+
+    /**
+     * Buckets never carry a stored version of 0: increments start it at 1 and
+     * a rebuild leaves it alone, so 0 stands for "no version yet".
+     */
+    private static Query matching(String id, long version) {
+        Criteria c = Criteria.where("_id").is(id);
+        return Query.query(version == 0 ? c.and("version").exists(false) : c.and("version").is(version));
+    }
+
+    private static Update replacement(ProviderRollup r, String runId) {
+        return Update.update("providerId", r.getProviderId())
+                .set("serviceId", r.getServiceId())
+                .set("granularity", r.getGranularity())
+                .set("period", r.getPeriod())
+                .set("bookings", r.getBookings())
+                .set("statusCounts", r.getStatusCounts())
+                .set("paidCount", r.getPaidCount())
+                .set("paidAmount", r.getPaidAmount())
+                .set("rebuild", runId);
+    }
+
+    private boolean acquireLease(String runId) {
+        Date now = new Date();
+        Query free = Query.query(Criteria.where("_id").is(LEASE_ID)
+                .orOperator(Criteria.where("leaseUntil").lt(now), Criteria.where("leaseUntil").exists(false)));
+        try {
+            mongoTemplate.upsert(free, Update.update("owner", runId)
+                    .set("leaseUntil", Date.from(now.toInstant().plus(LEASE)))
+                    .set("updatedAt", now), MIGRATIONS);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private void renewLease(String runId) {
+        Date now = new Date();
+        UpdateResult result = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(LEASE_ID).and("owner").is(runId)),
+                Update.update("leaseUntil", Date.from(now.toInstant().plus(LEASE))).set("updatedAt", now),
+                MIGRATIONS);
+        if (result.getMatchedCount() == 0) {
+            throw new IllegalStateException("Lost the provider rollup rebuild lease");
+        }
+    }
+
+    private void releaseLease(String runId) {
+        try {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(LEASE_ID).and("owner").is(runId)), MIGRATIONS);
+        } catch (RuntimeException e) {
+            log.warn("Could not release the provider rollup rebuild lease; it expires on its own", e);
+        }
+    }
+
+    private static List<ProviderRollup> bucketsOf(Booking b, Map<String, ProviderRollup> buckets) {
+        List<ProviderRollup> out = new ArrayList<>(4);
+        for (Granularity g : Granularity.values()) {
+            String period = g.periodOf(b.getCreatedAt());
+            for (String serviceId : new String[]{ProviderRollup.ALL_SERVICES, b.getServiceId()}) {
+                out.add(buckets.computeIfAbsent(ProviderRollup.idOf(b.getProviderId(), serviceId, g.value(), period), id -> {
+                    ProviderRollup r = new ProviderRollup();
+                    r.setId(id);
+                    r.setProviderId(b.getProviderId());
+                    r.setServiceId(serviceId);
+                    r.setGranularity(g.value());
+                    r.setPeriod(period);
+                    return r;
+                }));
+            }
+        }
+        return out;
+    }
+
+    private <T> void write(List<T> items, Function<T, Booking> bookingOf, Function<T, Update> updateOf) {
+        if (items.isEmpty()) {
+            return;
+        }
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ProviderRollup.class, COLLECTION);
+        for (T item : items) {
+            Booking b = bookingOf.apply(item);
+            Instant createdAt = b.getCreatedAt() != null ? b.getCreatedAt() : Instant.now();
+            for (Granularity g : Granularity.values()) {
+                String period = g.periodOf(createdAt);
+                for (String serviceId : new String[]{ProviderRollup.ALL_SERVICES, b.getServiceId()}) {
+                    Update update = updateOf.apply(item)
+                            .inc("version", 1)
+                            .setOnInsert("providerId", b.getProviderId())
+                            .setOnInsert("serviceId", serviceId)
+                            .setOnInsert("granularity", g.value())
+                            .setOnInsert("period", period);
+                    ops.upsert(Query.query(Criteria.where("_id").is(
+                            ProviderRollup.idOf(b.getProviderId(), serviceId, g.value(), period))), update);
+                }
+            }
+        }
+        try {
+            ops.execute();
+        } catch (RuntimeException e) {
+            log.warn("Provider rollup update failed for {} bookings; run a rebuild to repair", items.size(), e);
+        }
+    }
+
+    private static String statusKey(String status) {
+        return status == null ? "unknown" : status.replace('.', '_').replace('$', '_');
+    }
+
+    @Override
+    public void destroy() {
+        rebuilder.shutdownNow();
+    }
+}
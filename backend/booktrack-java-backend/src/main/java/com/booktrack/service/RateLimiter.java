@@ -0,0 +1,142 @@
+package com.booktrack.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process token buckets implemented with the generic cell rate algorithm:
+ * each bucket is a single {@link AtomicLong} holding the theoretical arrival
+ * time of the next request, so acquiring a permit is one CAS with no locks.
+ * Buckets live in independently sized shards; a bucket whose arrival time is
+ * in the past is indistinguishable from a fresh one and is evicted by the
+ * background sweep, never on the request path. When a shard is full, new
+ * keys share a per-policy overflow bucket, which keeps memory bounded under
+ * key floods while still limiting them.
+ */
+@Service
+public class RateLimiter implements DisposableBean {
+
+    private final Map<String, AtomicLong>[] shards;
+    private final int shardMask;
+    private final int maxKeysPerShard;
+    private final long epoch = System.nanoTime();
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "rate-limit-sweep");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @SuppressWarnings("unchecked")
+    public RateLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${app.ratelimit.shards:64}") int shardCount,
+            @Value("${app.ratelimit.max-keys:1000000}") int maxKeys,
+            @Value("${app.ratelimit.sweep-seconds:30}") long sweepSeconds
+    ) {
+        int n = Integer.highestOneBit(Math.max(1, shardCount - 1)) << 1;
+        this.shards = new Map[n];
+        for (int i = 0; i < n; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+        }
+        this.shardMask = n - 1;
+        this.maxKeysPerShard = Math.max(1, maxKeys / n);
+        Gauge.builder("ratelimit.buckets", this, RateLimiter::size)
+                .description("Active rate limit buckets")
+                .register(meterRegistry);
+        sweeper.scheduleWithFixedDelay(this::sweep, sweepSeconds, sweepSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * A bucket refilling {@code permits} tokens every {@code period}, holding at
+     * most {@code permits} tokens.
+     */
+    public record Policy(String name, long emissionNanos, long toleranceNanos) {
+
+        public static Policy of(String name, long permits, long period, TimeUnit unit) {
+            long emission = unit.toNanos(period) / permits;
+            return new Policy(name, emission, emission * permits);
+        }
+
+        /**
+         * Parses {@code "<permits>/<seconds>s"}, e.g. {@code "20/60s"}.
+         */
+        public static Policy parse(String name, String spec) {
+            String[] parts = spec.trim().split("/");
+            String period = parts[1].trim();
+            if (period.endsWith("s")) {
+                period = period.substring(0, period.length() - 1);
+            }
+            return of(name, Long.parseLong(parts[0].trim()), Long.parseLong(period), TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Takes one permit from the bucket for {@code key} under {@code policy}.
+     *
+     * @return 0 if the request is allowed, otherwise the nanoseconds until a
+     * permit becomes available
+     */
+    public long tryAcquire(Policy policy, String key) {
+        AtomicLong bucket = bucketFor(policy.name() + ':' + key, policy);
+        long now = System.nanoTime() - epoch;
+        while (true) {
+            long tat = bucket.get();
+            long next = Math.max(tat, now) + policy.emissionNanos();
+            long wait = next - now - policy.toleranceNanos();
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(tat, next)) {
+                return 0;
+            }
+        }
+    }
+
+    public int size() {
+        int total = 0;
+        for (Map<String, AtomicLong> shard : shards) {
+            total += shard.size();
+        }
+        return total;
+    }
+
+    private AtomicLong bucketFor(String key, Policy policy) {
+        Map<String, AtomicLong> shard = shards[spread(key.hashCode()) & shardMask];
+        AtomicLong bucket = shard.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (shard.size() >= maxKeysPerShard) {
+            // Eviction is left to the background sweep: scanning the shard
+            // here would cost O(shard) per request during a key flood.
+            return shard.computeIfAbsent(policy.name() + ":(overflow)", k -> new AtomicLong(Long.MIN_VALUE));
+        }
+        return shard.computeIfAbsent(key, k -> new AtomicLong(Long.MIN_VALUE));
+    }
+
+    private void sweep() {
+        long now = System.nanoTime() - epoch;
+        for (Map<String, AtomicLong> shard : shards) {
+            shard.entrySet().removeIf(e -> e.getValue().get() <= now);
+        }
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public void destroy() {
+        sweeper.shutdownNow();
+    }
+}
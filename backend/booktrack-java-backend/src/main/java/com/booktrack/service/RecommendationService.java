@@ -0,0 +1,233 @@
+package com.booktrack.service;
+
+import com.booktrack.model.Booking;
+import com.booktrack.repository.BookingRepositoryCustom;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Serves "also booked" recommendations from a {@link CoBookingIndex}. At
+ * startup the index is loaded from the snapshot at
+ * {@code app.recommendations.snapshot-path} and caught up with bookings
+ * inserted since (found through the time-ordered {@code _id}); without a
+ * usable snapshot it is built from {@code bookings} and
+ * {@code bookings_archive}. New bookings are added as they are created.
+ * <p>
+ * All index writes and snapshot saves run on the {@code co-booking-index}
+ * thread; lookups take a read lock and never wait for Mongo. The snapshot is
+ * rewritten every {@code snapshot-minutes} when the index changed, and on
+ * shutdown. An empty snapshot path disables snapshots.
+ */
+@org.springframework.stereotype.Service
+public class RecommendationService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationService.class);
+
+    // Bookings are inserted within moments of their createdAt; the margin
+    // absorbs clock skew between instances when catching up from a snapshot.
+    private static final Duration CATCH_UP_MARGIN = Duration.ofMinutes(5);
+
+    private final MongoTemplate mongoTemplate;
+    private final Path snapshotPath;
+    private final long snapshotMinutes;
+    private final int limit;
+    private final Timer lookups;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ScheduledExecutorService indexer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "co-booking-index");
+        t.setDaemon(true);
+        return t;
+    });
+    private CoBookingIndex index = new CoBookingIndex();
+    private boolean dirty;
+
+    public RecommendationService(
+            MongoTemplate mongoTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.recommendations.snapshot-path:data/co-booking.snapshot}") String snapshotPath,
+            @Value("${app.recommendations.snapshot-minutes:10}") long snapshotMinutes,
+            @Value("${app.recommendations.limit:5}") int limit
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.snapshotPath = snapshotPath.isBlank() ? null : Path.of(snapshotPath);
+        this.snapshotMinutes = snapshotMinutes;
+        this.limit = limit;
+        this.lookups = Timer.builder("recommendations.lookup")
+                .description("Also-booked recommendation lookup latency")
+                .register(meterRegistry);
+        Gauge.builder("recommendations.index.services", this, s -> s.read(CoBookingIndex::services))
+                .register(meterRegistry);
+        Gauge.builder("recommendations.index.pairs", this, s -> s.read(CoBookingIndex::pairs))
+                .description("Distinct (user, service) pairs in the co-booking index")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        indexer.execute(this::load);
+        if (snapshotPath != null) {
+            indexer.scheduleWithFixedDelay(this::saveSnapshot, snapshotMinutes, snapshotMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Services most often booked by users who also booked {@code serviceId}.
+     */
+    public List<CoBookingIndex.Recommendation> recommend(String serviceId) {
+        long start = System.nanoTime();
+        try {
+            return read(i -> i.top(serviceId, limit));
+        } finally {
+            lookups.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void recordBooking(Booking booking) {
+        indexer.execute(() -> {
+            lock.writeLock().lock();
+            try {
+                dirty |= index.add(booking.getUserId(), booking.getServiceId(), booking.getCreatedAt());
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private <T> T read(Function<CoBookingIndex, T> f) {
+        lock.readLock().lock();
+        try {
+            return f.apply(index);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void load() {
+        long start = System.nanoTime();
+        try {
+            CoBookingIndex loaded = readSnapshot();
+            String source;
+            boolean changed;
+            if (loaded != null && loaded.coveredUntil() != null) {
+                Instant from = loaded.coveredUntil().minus(CATCH_UP_MARGIN);
+                long added = addBookings(loaded, "bookings",
+                        Query.query(Criteria.where("_id").gte(new ObjectId(Date.from(from)))));
+                source = "snapshot + " + added + " newer bookings";
+                changed = added > 0;
+            } else {
+                loaded = new CoBookingIndex();
+                addBookings(loaded, "bookings", new Query());
+                addBookings(loaded, BookingRepositoryCustom.ARCHIVE_COLLECTION, new Query());
+                source = "bookings";
+                changed = true;
+            }
+            lock.writeLock().lock();
+            try {
+                index = loaded;
+                dirty = changed;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Co-booking index loaded from {}: {} services, {} users, {} pairs, ~{} KiB in {} ms",
+                    source, loaded.services(), loaded.users(), loaded.pairs(), loaded.estimatedBytes() / 1024,
+                    (System.nanoTime() - start) / 1_000_000);
+            saveSnapshot();
+        } catch (RuntimeException e) {
+            log.warn("Failed to build co-booking index", e);
+        }
+    }
+
+    private long addBookings(CoBookingIndex target, String collection, Query query) {
+        query.cursorBatchSize(1000).fields().include("userId", "serviceId", "createdAt");
+        long[] added = {0};
+        try (Stream<Booking> stream = mongoTemplate.stream(query, Booking.class, collection)) {
+            stream.forEach(b -> {
+                if (target.add(b.getUserId(), b.getServiceId(), b.getCreatedAt())) {
+                    added[0]++;
+                }
+            });
+        }
+        return added[0];
+    }
+
+    private CoBookingIndex readSnapshot() {
+        if (snapshotPath == null) {
+            return null;
+        }
+        try (InputStream in = Files.newInputStream(snapshotPath)) {
+            return CoBookingIndex.read(in);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable co-booking snapshot {}: {}", snapshotPath, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes the snapshot if the index changed since the last one. Runs on
+     * the indexer thread (or after it stopped), so the index cannot change
+     * underneath it.
+     */
+    private void saveSnapshot() {
+        if (snapshotPath == null || !dirty) {
+            return;
+        }
+        try {
+            Path dir = snapshotPath.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, snapshotPath.getFileName().toString(), ".tmp");
+            try {
+                try (OutputStream out = Files.newOutputStream(tmp)) {
+                    index.write(out);
+                }
+                Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            dirty = false;
+        } catch (IOException e) {
+            log.warn("Failed to write co-booking snapshot {}", snapshotPath, e);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        indexer.shutdown();
+        if (indexer.awaitTermination(10, TimeUnit.SECONDS)) {
+            saveSnapshot();
+        } else {
+            indexer.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.booktrack.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * The binary encodings offered next to JSON: CBOR and Smile. Both mappers are
+ * built from the same {@link Jackson2ObjectMapperBuilder} configuration as the
+ * JSON one, so every response keeps exactly the JSON data shape, only encoded
+ * more compactly. JSON stays the default; a binary format is used only when
+ * the client's {@code Accept} header prefers it.
+ */
+public final class ResponseFormats {
+
+    public static final MediaType CBOR = new MediaType("application", "cbor");
+    public static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
+    private final ObjectMapper json;
+    private final ObjectMapper cbor;
+    private final ObjectMapper smile;
+
+    private ResponseFormats(ObjectMapper json, ObjectMapper cbor, ObjectMapper smile) {
+        this.json = json;
+        this.cbor = cbor;
+        this.smile = smile;
+    }
+
+    /**
+     * {@code builders} must return a fresh, identically configured builder on
+     * each call (Spring Boot's builder bean is prototype scoped).
+     */
+    public static ResponseFormats create(Supplier<Jackson2ObjectMapperBuilder> builders) {
+        return new ResponseFormats(
+                builders.get().build(),
+                builders.get().factory(new CBORFactory()).build(),
+                builders.get().factory(new SmileFactory()).build());
+    }
+
+    public ObjectMapper cbor() {
+        return cbor;
+    }
+
+    public ObjectMapper smile() {
+        return smile;
+    }
+
+    /**
+     * The binary format the {@code Accept} header prefers, or {@code null}
+     * when JSON should be sent (no header, a wildcard, JSON itself, or a
+     * malformed header).
+     */
+    public MediaType negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return null;
+        }
+        List<MediaType> types;
+        try {
+            types = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        types.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType t : types) {
+            if (t.getQualityValue() == 0) {
+                continue;
+            }
+            if (t.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return null;
+            }
+            if (CBOR.isCompatibleWith(t)) {
+                return CBOR;
+            }
+            if (SMILE.isCompatibleWith(t)) {
+                return SMILE;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Re-encodes a JSON document as {@code type}.
+     */
+    public byte[] transcode(byte[] jsonBytes, MediaType type) {
+        ObjectMapper target = SMILE.equals(type) ? smile : cbor;
+        try {
+            return target.writeValueAsBytes(json.readTree(jsonBytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.booktrack.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram over a sliding window made of fixed-length
+ * slots. Values are bucketed on a log2 scale with four linear sub-buckets
+ * per power of two, which keeps percentiles within ~25% of the true value.
+ * A slot is cleared by whichever recorder first enters a new time slice, so a
+ * handful of samples racing that reset may be dropped.
+ */
+public class RollingHistogram {
+
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+    private final long slotMillis;
+    private final Slot[] slots;
+
+    public RollingHistogram(int slotCount, long slotMillis) {
+        this.slotMillis = slotMillis;
+        this.slots = new Slot[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    public record Snapshot(long count, long sum, long max, long extra, long[] buckets) {
+
+        public long percentile(double p) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(count * p / 100.0);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), max);
+                }
+            }
+            return max;
+        }
+
+        public double mean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+    }
+
+    private static final class Slot {
+        final AtomicLong epoch = new AtomicLong(-1);
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong sum = new AtomicLong();
+        final AtomicLong max = new AtomicLong();
+        final AtomicLong extra = new AtomicLong();
+        final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        void reset() {
+            count.set(0);
+            sum.set(0);
+            max.set(0);
+            extra.set(0);
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets.set(i, 0);
+            }
+        }
+    }
+
+    /**
+     * Records a value together with an auxiliary counter (e.g. documents
+     * returned) that is summed alongside it.
+     */
+    public void record(long value, long extra) {
+        long now = System.currentTimeMillis() / slotMillis;
+        Slot slot = slots[(int) (now % slots.length)];
+        long seen = slot.epoch.get();
+        if (seen != now && slot.epoch.compareAndSet(seen, now)) {
+            slot.reset();
+        }
+
+        long v = Math.max(0, value);
+        slot.count.incrementAndGet();
+        slot.sum.addAndGet(v);
+        slot.extra.addAndGet(extra);
+        slot.buckets.incrementAndGet(bucketOf(v));
+        long max;
+        while (v > (max = slot.max.get()) && !slot.max.compareAndSet(max, v)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    public Snapshot snapshot() {
+        long now = System.currentTimeMillis() / slotMillis;
+        long count = 0;
+        long sum = 0;
+        long max = 0;
+        long extra = 0;
+        long[] merged = new long[BUCKETS];
+        for (Slot slot : slots) {
+            long epoch = slot.epoch.get();
+            if (epoch < 0 || now - epoch >= slots.length) {
+                continue;
+            }
+            count += slot.count.get();
+            sum += slot.sum.get();
+            extra += slot.extra.get();
+            max = Math.max(max, slot.max.get());
+            for (int i = 0; i < BUCKETS; i++) {
+                merged[i] += slot.buckets.get(i);
+            }
+        }
+        return new Snapshot(count, sum, max, extra, merged);
+    }
+
+    static int bucketOf(long v) {
+        if (v < SUB_BUCKETS) {
+            return (int) v;
+        }
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        int sub = (int) (v >>> (exp - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exp - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exp = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        long base = 1L << exp;
+        long width = 1L << (exp - SUB_BUCKET_BITS);
+        return base + (sub + 1) * width - 1;
+    }
+}
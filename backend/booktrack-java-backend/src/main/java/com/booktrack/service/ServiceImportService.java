@@ -0,0 +1,402 @@
+package com.booktrack.service;
+
+import com.booktrack.dto.ServiceCreateDto;
+import com.booktrack.event.CatalogChangedEvent;
+import com.booktrack.model.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Imports services for one provider from NDJSON or CSV rows shaped like
+ * {@link ServiceCreateDto}. Rows are parsed and validated one at a time and
+ * written in unordered bulk inserts of {@code chunkSize}, so memory use is
+ * bounded by the chunk size no matter how large the upload is.
+ * <p>
+ * Chunks already written stay written if the upload breaks off (the client
+ * disconnects, or a record is malformed beyond recovery): the rows read so
+ * far are still flushed, caches are told about the new services, and the
+ * report says how far the import got, flagged {@code aborted}.
+ */
+@org.springframework.stereotype.Service
+public class ServiceImportService {
+
+    public enum Format { NDJSON, CSV }
+
+    private static final int MAX_RECORD_CHARS = 1024 * 1024;
+
+    private static final List<String> TOO_LONG = Collections.unmodifiableList(new ArrayList<>());
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+    private final int maxReportedErrors;
+
+    public ServiceImportService(
+            MongoTemplate mongoTemplate,
+            ObjectMapper objectMapper,
+            Validator validator,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${app.import.chunk-size:1000}") int chunkSize,
+            @Value("${app.import.max-reported-errors:1000}") int maxReportedErrors
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    private final class Run {
+        final User provider;
+        final List<com.booktrack.model.Service> chunk = new ArrayList<>(chunkSize);
+        final List<Long> chunkRows = new ArrayList<>(chunkSize);
+        final List<Map<String, Object>> errors = new ArrayList<>();
+        long rows;
+        long inserted;
+        long failed;
+
+        Run(User provider) {
+            this.provider = provider;
+        }
+
+        void accept(long row, ServiceCreateDto dto) {
+            rows++;
+            com.booktrack.model.Service service;
+            try {
+                Set<ConstraintViolation<ServiceCreateDto>> violations = validator.validate(dto);
+                if (!violations.isEmpty()) {
+                    fail(row, violations.stream()
+                            .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                            .sorted()
+                            .collect(Collectors.joining("; ")));
+                    return;
+                }
+                service = com.booktrack.model.Service.newService(
+                        provider,
+                        dto.getName(),
+                        dto.getDescription(),
+                        dto.getCategory(),
+                        dto.getPrice(),
+                        dto.getLocation(),
+                        dto.getDuration(),
+                        dto.getImageUrl()
+                );
+            } catch (RuntimeException e) {
+                fail(row, "Invalid row: " + e.getMessage());
+                return;
+            }
+            chunk.add(service);
+            chunkRows.add(row);
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void reject(long row, String error) {
+            rows++;
+            fail(row, error);
+        }
+
+        void fail(long row, String error) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                Map<String, Object> e = new LinkedHashMap<>();
+                e.put("row", row);
+                e.put("error", error);
+                errors.add(e);
+            }
+        }
+
+        void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, com.booktrack.model.Service.class);
+            ops.insert(chunk);
+            try {
+                inserted += ops.execute().getInsertedCount();
+            } catch (BulkOperationException e) {
+                inserted += e.getResult().getInsertedCount();
+                e.getErrors().forEach(err -> fail(chunkRows.get(err.getIndex()), "Insert failed: " + err.getMessage()));
+            }
+            chunk.clear();
+            chunkRows.clear();
+        }
+    }
+
+    public Map<String, Object> importServices(User provider, InputStream body, Format format) {
+        long start = System.nanoTime();
+        Run run = new Run(provider);
+        LineReader reader = new LineReader(new InputStreamReader(body, StandardCharsets.UTF_8), MAX_RECORD_CHARS);
+
+        String abortedBy = null;
+        try {
+            if (format == Format.CSV) {
+                readCsv(reader, run);
+            } else {
+                readNdjson(reader, run);
+            }
+        } catch (IOException e) {
+            abortedBy = e.getMessage();
+        } finally {
+            try {
+                run.flush();
+            } finally {
+                if (run.inserted > 0) {
+                    eventPublisher.publishEvent(new CatalogChangedEvent(null));
+                }
+            }
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Map<String, Object> res = new LinkedHashMap<>();
+        res.put("rows", run.rows);
+        res.put("inserted", run.inserted);
+        res.put("failed", run.failed);
+        res.put("elapsed_ms", Math.round(seconds * 1000));
+        res.put("rows_per_second", seconds == 0 ? run.rows : Math.round(run.rows / seconds));
+        res.put("errors", run.errors);
+        res.put("errors_truncated", run.failed > run.errors.size());
+        if (abortedBy != null) {
+            res.put("aborted", true);
+            res.put("error", "Import aborted after row " + run.rows + ": " + abortedBy);
+        }
+        return res;
+    }
+
+    private void readNdjson(LineReader reader, Run run) throws IOException {
+        long row = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (reader.overflowed()) {
+                run.reject(++row, "Row exceeds " + MAX_RECORD_CHARS + " characters");
+                continue;
+            }
+            if (line.isBlank()) {
+                continue;
+            }
+            row++;
+            ServiceCreateDto dto;
+            try {
+                dto = objectMapper.readValue(line, ServiceCreateDto.class);
+            } catch (JsonProcessingException e) {
+                run.reject(row, "Invalid JSON: " + e.getOriginalMessage());
+                continue;
+            } catch (RuntimeException e) {
+                run.reject(row, "Invalid row: " + e.getMessage());
+                continue;
+            }
+            // A bare "null" line reads as no object at all.
+            if (dto == null) {
+                run.reject(row, "Row is not a JSON object");
+                continue;
+            }
+            run.accept(row, dto);
+        }
+    }
+
+    private void readCsv(LineReader reader, Run run) throws IOException {
+        List<String> header = readCsvRecord(reader);
+        if (header == null) {
+            return;
+        }
+        if (header == TOO_LONG) {
+            throw new IOException("CSV header exceeds " + MAX_RECORD_CHARS + " characters");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT).replace("_", ""), i);
+        }
+
+        long row = 0;
+        List<String> fields;
+        while ((fields = readCsvRecord(reader)) != null) {
+            if (fields == TOO_LONG) {
+                run.reject(++row, "Row exceeds " + MAX_RECORD_CHARS + " characters");
+                continue;
+            }
+            if (fields.size() == 1 && fields.get(0).isBlank()) {
+                continue;
+            }
+            row++;
+            ServiceCreateDto dto = new ServiceCreateDto();
+            try {
+                dto.setName(column(fields, columns, "name"));
+                dto.setDescription(column(fields, columns, "description"));
+                dto.setCategory(column(fields, columns, "category"));
+                dto.setLocation(column(fields, columns, "location"));
+                dto.setImageUrl(column(fields, columns, "imageurl"));
+                String price = column(fields, columns, "price");
+                dto.setPrice(price == null || price.isBlank() ? null : Double.valueOf(price.trim()));
+                String duration = column(fields, columns, "duration");
+                dto.setDuration(duration == null || duration.isBlank() ? null : Integer.valueOf(duration.trim()));
+            } catch (NumberFormatException e) {
+                run.reject(row, "Invalid number: " + e.getMessage());
+                continue;
+            } catch (RuntimeException e) {
+                run.reject(row, "Invalid row: " + e.getMessage());
+                continue;
+            }
+            run.accept(row, dto);
+        }
+    }
+
+    private static String column(List<String> fields, Map<String, Integer> columns, String name) {
+        Integer i = columns.get(name);
+        return i == null || i >= fields.size() ? null : fields.get(i);
+    }
+
+    /**
+     * Reads one RFC 4180 record, which may span several lines when a quoted
+     * field contains line breaks. Returns {@code null} at end of input and
+     * {@link #TOO_LONG} for a record with an overlong line, whose remainder
+     * has been skipped.
+     */
+    static List<String> readCsvRecord(LineReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        if (reader.overflowed()) {
+            return TOO_LONG;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"') {
+                        if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                            field.append('"');
+                            i++;
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            if (!quoted) {
+                break;
+            }
+            if (field.length() > MAX_RECORD_CHARS) {
+                throw new IOException("CSV record exceeds " + MAX_RECORD_CHARS + " characters (unclosed quote?)");
+            }
+            line = reader.readLine();
+            if (line == null) {
+                break;
+            }
+            if (reader.overflowed()) {
+                return TOO_LONG;
+            }
+            field.append('\n');
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * {@link java.io.BufferedReader#readLine()} with a length cap, so that an upload
+     * without line breaks is never buffered whole. A longer line is cut at
+     * {@code maxChars}, the rest of it is skipped, and {@link #overflowed()}
+     * tells the caller to reject it.
+     */
+    static final class LineReader {
+
+        private final Reader in;
+        private final int maxChars;
+        private final char[] buf = new char[64 * 1024];
+        private final StringBuilder line = new StringBuilder();
+        private int pos;
+        private int limit;
+        private boolean skipLf;
+        private boolean overflowed;
+
+        LineReader(Reader in, int maxChars) {
+            this.in = in;
+            this.maxChars = maxChars;
+        }
+
+        /**
+         * The next line without its terminator ({@code \n}, {@code \r} or
+         * {@code \r\n}), or {@code null} at end of input.
+         */
+        String readLine() throws IOException {
+            line.setLength(0);
+            overflowed = false;
+            boolean any = false;
+            while (true) {
+                if (pos == limit) {
+                    int n = in.read(buf, 0, buf.length);
+                    if (n < 0) {
+                        return any ? line.toString() : null;
+                    }
+                    pos = 0;
+                    limit = n;
+                    continue;
+                }
+                if (skipLf) {
+                    skipLf = false;
+                    if (buf[pos] == '\n') {
+                        pos++;
+                        continue;
+                    }
+                }
+                any = true;
+                int start = pos;
+                while (pos < limit && buf[pos] != '\n' && buf[pos] != '\r') {
+                    pos++;
+                }
+                int room = maxChars - line.length();
+                if (pos - start > room) {
+                    overflowed = true;
+                }
+                line.append(buf, start, Math.min(pos - start, room));
+                if (pos < limit) {
+                    skipLf = buf[pos] == '\r';
+                    pos++;
+                    return line.toString();
+                }
+            }
+        }
+
+        boolean overflowed() {
+            return overflowed;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.booktrack.service;
+
+import com.booktrack.model.Review;
+import com.booktrack.model.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class ServiceViews {
+
+    private ServiceViews() {
+    }
+
+    public static Map<String, Object> summary(Service s, List<Review> reviews) {
+        int count = reviews.size();
+        double avg = 0.0;
+        if (count > 0) {
+            avg = reviews.stream().mapToInt(Review::getRating).average().orElse(0);
+        }
+        return summary(s, avg, count);
+    }
+
+    public static Map<String, Object> summary(Service s, CatalogStatsService.Stats stats) {
+        return summary(s, stats.averageRating(), stats.reviewCount());
+    }
+
+    private static Map<String, Object> summary(Service s, double avg, long count) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("id", s.getId());
+        m.put("provider_id", s.getProviderId());
+        m.put("provider_name", s.getProviderName());
+        m.put("name", s.getName());
+        m.put("description", s.getDescription());
+        m.put("category", s.getCategory());
+        m.put("price", s.getPrice());
+        m.put("location", s.getLocation());
+        m.put("duration", s.getDuration());
+        m.put("image_url", s.getImageUrl());
+        m.put("created_at", s.getCreatedAt());
+        m.put("average_rating", count == 0 ? 0 : Math.round(avg * 10.0) / 10.0);
+        m.put("review_count", count);
+        return m;
+    }
+}
@@ -0,0 +1,102 @@
+package com.booktrack.service;
+
+import com.stripe.exception.StripeException;
+import com.stripe.model.checkout.Session;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.checkout.SessionCreateParams;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Stripe API calls with latency metrics. The API key is passed per request
+ * rather than set on the static {@code Stripe} client at startup, so the SDK
+ * is not touched until the first payment.
+ * <p>
+ * Creates made inside an {@link IdempotencyService} action carry a Stripe
+ * idempotency key derived from the client's {@code Idempotency-Key}, so a
+ * retry that re-runs the action (because saving its result failed, or its
+ * node died) gets the session Stripe already created rather than a second one.
+ */
+@Service
+public class StripeGateway {
+
+    private final MeterRegistry meterRegistry;
+    private final Tracer tracer;
+    private final String apiKey;
+
+    public StripeGateway(MeterRegistry meterRegistry, Tracer tracer, @Value("${app.stripe.api-key}") String apiKey) {
+        this.meterRegistry = meterRegistry;
+        this.tracer = tracer;
+        this.apiKey = apiKey;
+    }
+
+    public Session createSession(SessionCreateParams params) throws StripeException {
+        return timed("checkout.session.create",
+                () -> Session.create(params, options(idempotencyKey("checkout.session.create"))));
+    }
+
+    public Session retrieveSession(String sessionId) throws StripeException {
+        return timed("checkout.session.retrieve", () -> Session.retrieve(sessionId, options(null)));
+    }
+
+    private RequestOptions options(String idempotencyKey) {
+        RequestOptions.RequestOptionsBuilder builder = RequestOptions.builder().setApiKey(apiKey);
+        if (idempotencyKey != null) {
+            builder.setIdempotencyKey(idempotencyKey);
+        }
+        return builder.build();
+    }
+
+    /**
+     * A Stripe idempotency key for {@code operation} within the current
+     * idempotent action, or {@code null} outside one. Hashed, since the
+     * stored key (scope, user and client key) may exceed Stripe's 255
+     * characters.
+     */
+    private static String idempotencyKey(String operation) {
+        String key = IdempotencyService.currentKey();
+        if (key == null) {
+            return null;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest((key + "|" + operation).getBytes(StandardCharsets.UTF_8));
+            return "booktrack-" + HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private interface StripeCall<T> {
+        T call() throws StripeException;
+    }
+
+    private <T> T timed(String operation, StripeCall<T> call) throws StripeException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        Tracer.Span span = tracer.startSpan("stripe " + operation, Tracer.Kind.CLIENT)
+                .tag("peer.service", "stripe")
+                .tag("stripe.operation", operation);
+        try {
+            return call.call();
+        } catch (StripeException | RuntimeException e) {
+            outcome = e.getClass().getSimpleName();
+            span.fail(e);
+            throw e;
+        } finally {
+            span.close();
+            sample.stop(Timer.builder("stripe.requests")
+                    .description("Latency of Stripe API calls")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+}
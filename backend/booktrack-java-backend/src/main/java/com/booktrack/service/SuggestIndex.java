@@ -0,0 +1,302 @@
+package com.booktrack.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
+import java.util.regex.Pattern;
+
+/**
+ * Prefix index for catalog autocomplete. Every word-start suffix of a
+ * normalized service name is a key ("deep home cleaning", "home cleaning",
+ * "cleaning"), kept in a sorted array so a prefix maps to one contiguous
+ * range found by binary search. Categories and provider names live in a
+ * second, much smaller array with popularity summed over their services; a
+ * group is dropped once its last service is.
+ * <p>
+ * Prefixes matching more than {@value #MEMO_RANGE} keys are ranked once per
+ * index and memoized. Service changes are applied with {@link #with}, which
+ * finds the stale keys by binary search and splices the arrays with bulk
+ * copies instead of rebuilding them. Instances never change once published,
+ * but successive instances share the per-service table, so {@code with} must
+ * only be called by a single writer on the latest index.
+ */
+public final class SuggestIndex {
+
+    public static final int MAX_LIMIT = 20;
+
+    private static final int MEMO_RANGE = 1024;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    public record Doc(String id, String name, String category, String providerName) {
+    }
+
+    public record Suggestion(String type, String text, String serviceId, long popularity) {
+    }
+
+    private record Entry(String key, Suggestion ref) {
+    }
+
+    private record Indexed(Doc doc, Suggestion ref) {
+    }
+
+    /**
+     * A category's or provider's service count and summed popularity.
+     */
+    private record Group(long services, long popularity) {
+
+        Group plus(Group o) {
+            return new Group(services + o.services, popularity + o.popularity);
+        }
+    }
+
+    private static final Comparator<Suggestion> MOST_POPULAR = Comparator.comparingLong(Suggestion::popularity).reversed()
+            .thenComparing(Suggestion::text);
+
+    private final String[] serviceKeys;
+    private final Suggestion[] serviceRefs;
+    private final String[] groupKeys;
+    private final Suggestion[] groupRefs;
+    private final Map<String, Indexed> services;
+    private final Map<String, Group> categories;
+    private final Map<String, Group> providers;
+    private final Map<String, List<Suggestion>> memo = new ConcurrentHashMap<>();
+    private final long estimatedBytes;
+
+    private SuggestIndex(
+            String[] serviceKeys,
+            Suggestion[] serviceRefs,
+            Map<String, Indexed> services,
+            Map<String, Group> categories,
+            Map<String, Group> providers
+    ) {
+        this.serviceKeys = serviceKeys;
+        this.serviceRefs = serviceRefs;
+        this.services = services;
+        this.categories = categories;
+        this.providers = providers;
+
+        List<Entry> groups = new ArrayList<>();
+        categories.forEach((text, g) -> addKeys(groups, new Suggestion("category", text, null, g.popularity())));
+        providers.forEach((text, g) -> addKeys(groups, new Suggestion("provider", text, null, g.popularity())));
+        groups.sort(Comparator.comparing(Entry::key));
+        this.groupKeys = new String[groups.size()];
+        this.groupRefs = new Suggestion[groups.size()];
+        for (int i = 0; i < groups.size(); i++) {
+            groupKeys[i] = groups.get(i).key();
+            groupRefs[i] = groups.get(i).ref();
+        }
+        this.estimatedBytes = estimateBytes();
+    }
+
+    public static SuggestIndex empty() {
+        return new SuggestIndex(new String[0], new Suggestion[0], new HashMap<>(), Map.of(), Map.of());
+    }
+
+    public static SuggestIndex build(Collection<Doc> docs, ToLongFunction<String> popularityOf) {
+        return empty().with(docs, Set.of(), popularityOf);
+    }
+
+    /**
+     * A new index with {@code upserts} added or replaced and {@code removals}
+     * dropped. Untouched services keep the popularity they were indexed with.
+     */
+    public SuggestIndex with(Collection<Doc> upserts, Set<String> removals, ToLongFunction<String> popularityOf) {
+        Map<String, Group> nextCategories = new HashMap<>(categories);
+        Map<String, Group> nextProviders = new HashMap<>(providers);
+
+        List<String> changed = new ArrayList<>(removals);
+        upserts.forEach(d -> changed.add(d.id()));
+        List<Integer> stale = new ArrayList<>();
+        for (String id : changed) {
+            Indexed old = services.remove(id);
+            if (old == null) {
+                continue;
+            }
+            Group gone = new Group(-1, -old.ref().popularity());
+            adjust(nextCategories, old.doc().category(), gone);
+            adjust(nextProviders, old.doc().providerName(), gone);
+            for (String key : wordSuffixes(normalize(old.doc().name()))) {
+                for (int i = lowerBound(serviceKeys, key); i < serviceKeys.length && serviceKeys[i].equals(key); i++) {
+                    if (serviceRefs[i] == old.ref()) {
+                        stale.add(i);
+                        break;
+                    }
+                }
+            }
+        }
+
+        List<Entry> added = new ArrayList<>();
+        for (Doc d : upserts) {
+            long pop = popularityOf.applyAsLong(d.id());
+            Suggestion s = new Suggestion("service", d.name(), d.id(), pop);
+            services.put(d.id(), new Indexed(d, s));
+            adjust(nextCategories, d.category(), new Group(1, pop));
+            adjust(nextProviders, d.providerName(), new Group(1, pop));
+            addKeys(added, s);
+        }
+        added.sort(Comparator.comparing(Entry::key));
+
+        // Copy the runs between stale positions and insertion points in bulk.
+        int[] skip = stale.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+        String[] keys = new String[serviceKeys.length - skip.length + added.size()];
+        Suggestion[] refs = new Suggestion[keys.length];
+        int src = 0;
+        int dst = 0;
+        int s = 0;
+        int a = 0;
+        while (src < serviceKeys.length || a < added.size()) {
+            int nextSkip = s < skip.length ? skip[s] : serviceKeys.length;
+            int nextInsert = a < added.size() ? upperBound(serviceKeys, added.get(a).key()) : serviceKeys.length;
+            int run = Math.min(nextSkip, nextInsert) - src;
+            if (run > 0) {
+                System.arraycopy(serviceKeys, src, keys, dst, run);
+                System.arraycopy(serviceRefs, src, refs, dst, run);
+                src += run;
+                dst += run;
+            }
+            if (a < added.size() && nextInsert == src) {
+                keys[dst] = added.get(a).key();
+                refs[dst++] = added.get(a++).ref();
+            } else if (s < skip.length && nextSkip == src) {
+                src++;
+                s++;
+            }
+        }
+        return new SuggestIndex(keys, refs, services, nextCategories, nextProviders);
+    }
+
+    /**
+     * Up to {@code limit} distinct suggestions whose key starts with the
+     * normalized {@code prefix}, most popular first.
+     */
+    public List<Suggestion> lookup(String prefix, int limit) {
+        String p = normalize(prefix);
+        int n = Math.min(limit, MAX_LIMIT);
+        if (p.isEmpty() || n <= 0) {
+            return List.of();
+        }
+        int from = lowerBound(serviceKeys, p);
+        int to = lowerBound(serviceKeys, p + Character.MAX_VALUE);
+        List<Suggestion> top = to - from > MEMO_RANGE
+                ? memo.computeIfAbsent(p, k -> rank(k, from, to, MAX_LIMIT))
+                : rank(p, from, to, n);
+        return top.size() > n ? top.subList(0, n) : top;
+    }
+
+    private List<Suggestion> rank(String prefix, int from, int to, int limit) {
+        TopK<Suggestion> top = new TopK<>(limit, MOST_POPULAR);
+        Set<Suggestion> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = lowerBound(groupKeys, prefix); i < groupKeys.length && groupKeys[i].startsWith(prefix); i++) {
+            if (seen.add(groupRefs[i])) {
+                top.offer(groupRefs[i]);
+            }
+        }
+        for (int i = from; i < to; i++) {
+            if (seen.add(serviceRefs[i])) {
+                top.offer(serviceRefs[i]);
+            }
+        }
+        return top.result();
+    }
+
+    public int size() {
+        return serviceKeys.length + groupKeys.length;
+    }
+
+    /**
+     * Approximate retained size in bytes: key strings (compact Latin-1
+     * storage assumed), suggestion objects, the per-service table and the
+     * reference arrays. Memoized lookups are not counted.
+     */
+    public long estimatedBytes() {
+        return estimatedBytes;
+    }
+
+    private long estimateBytes() {
+        long bytes = 0;
+        for (String key : serviceKeys) {
+            bytes += 40 + key.length();
+        }
+        for (String key : groupKeys) {
+            bytes += 40 + key.length();
+        }
+        bytes += (long) size() * 2 * 4 + 32;
+        bytes += (long) services.size() * (32 + 24 + 32 + 96);
+        bytes += (long) groupRefs.length * 32;
+        return bytes;
+    }
+
+    public static String normalize(String s) {
+        if (s == null) {
+            return "";
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(s, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATORS.matcher(folded.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private static List<String> wordSuffixes(String normalized) {
+        List<String> out = new ArrayList<>();
+        if (normalized.isEmpty()) {
+            return out;
+        }
+        out.add(normalized);
+        for (int i = normalized.indexOf(' '); i >= 0; i = normalized.indexOf(' ', i + 1)) {
+            out.add(normalized.substring(i + 1));
+        }
+        return out;
+    }
+
+    private static void addKeys(List<Entry> out, Suggestion s) {
+        for (String key : wordSuffixes(normalize(s.text()))) {
+            out.add(new Entry(key, s));
+        }
+    }
+
+    private static void adjust(Map<String, Group> totals, String group, Group delta) {
+        if (group != null && !group.isBlank()) {
+            totals.merge(group, delta, (a, b) -> {
+                Group sum = a.plus(b);
+                return sum.services() > 0 ? sum : null;
+            });
+        }
+    }
+
+    private static int lowerBound(String[] sorted, String key) {
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid].compareTo(key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int upperBound(String[] sorted, String key) {
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid].compareTo(key) <= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
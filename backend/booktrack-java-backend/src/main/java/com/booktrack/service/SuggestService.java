@@ -0,0 +1,148 @@
+package com.booktrack.service;
+
+import com.booktrack.event.CatalogChangedEvent;
+import com.booktrack.model.Service;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Serves autocomplete from a {@link SuggestIndex}. Service writes are queued
+ * by id and applied as one merge on the {@code suggest-index} thread; imports
+ * (which change many services at once) and the periodic popularity refresh
+ * rebuild the index from {@code services}. Lookups never block on updates.
+ */
+@org.springframework.stereotype.Service
+public class SuggestService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(SuggestService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final CatalogStatsService catalogStats;
+    private final long rebuildMinutes;
+    private final Timer lookups;
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean updateScheduled = new AtomicBoolean();
+    private final AtomicBoolean fullRebuild = new AtomicBoolean();
+    private final ScheduledExecutorService updater = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "suggest-index");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile SuggestIndex index = SuggestIndex.empty();
+
+    public SuggestService(
+            MongoTemplate mongoTemplate,
+            CatalogStatsService catalogStats,
+            MeterRegistry meterRegistry,
+            @Value("${app.catalog.suggest.rebuild-minutes:10}") long rebuildMinutes
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.catalogStats = catalogStats;
+        this.rebuildMinutes = rebuildMinutes;
+        this.lookups = Timer.builder("suggest.lookup")
+                .description("Autocomplete lookup latency")
+                .register(meterRegistry);
+        Gauge.builder("suggest.index.bytes", this, s -> s.index.estimatedBytes())
+                .description("Estimated memory retained by the autocomplete index")
+                .register(meterRegistry);
+        Gauge.builder("suggest.index.keys", this, s -> s.index.size())
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        catalogStats.loaded().whenComplete((v, e) ->
+                updater.scheduleWithFixedDelay(this::rebuild, 0, rebuildMinutes, TimeUnit.MINUTES));
+    }
+
+    public List<SuggestIndex.Suggestion> suggest(String prefix, int limit) {
+        long start = System.nanoTime();
+        try {
+            return index.lookup(prefix, limit);
+        } finally {
+            lookups.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.serviceId() == null) {
+            if (fullRebuild.compareAndSet(false, true)) {
+                updater.execute(this::rebuild);
+            }
+        } else if (dirty.add(event.serviceId()) && updateScheduled.compareAndSet(false, true)) {
+            updater.execute(this::applyDirty);
+        }
+    }
+
+    private void applyDirty() {
+        updateScheduled.set(false);
+        try {
+            Set<String> ids = new HashSet<>(dirty);
+            dirty.removeAll(ids);
+            if (ids.isEmpty()) {
+                return;
+            }
+            Query q = Query.query(Criteria.where("id").in(ids));
+            q.fields().include("id", "name", "category", "providerName");
+            List<SuggestIndex.Doc> upserts = mongoTemplate.find(q, Service.class).stream()
+                    .map(SuggestService::docOf)
+                    .collect(Collectors.toList());
+            Set<String> removals = new HashSet<>(ids);
+            upserts.forEach(d -> removals.remove(d.id()));
+            index = index.with(upserts, removals, id -> catalogStats.get(id).bookingCount());
+        } catch (RuntimeException e) {
+            log.warn("Failed to update suggest index", e);
+        }
+    }
+
+    private void rebuild() {
+        fullRebuild.set(false);
+        try {
+            long start = System.nanoTime();
+            Query q = new Query().cursorBatchSize(1000);
+            q.fields().include("id", "name", "category", "providerName");
+            List<SuggestIndex.Doc> docs = new ArrayList<>();
+            try (Stream<Service> stream = mongoTemplate.stream(q, Service.class)) {
+                stream.forEach(s -> docs.add(docOf(s)));
+            }
+            SuggestIndex next = SuggestIndex.build(docs, id -> catalogStats.get(id).bookingCount());
+            index = next;
+            log.info("Suggest index rebuilt: {} services, {} keys, ~{} KiB in {} ms",
+                    docs.size(), next.size(), next.estimatedBytes() / 1024, (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("Failed to rebuild suggest index", e);
+        }
+    }
+
+    private static SuggestIndex.Doc docOf(Service s) {
+        return new SuggestIndex.Doc(s.getId(), s.getName(), s.getCategory(), s.getProviderName());
+    }
+
+    @Override
+    public void destroy() {
+        updater.shutdownNow();
+    }
+}
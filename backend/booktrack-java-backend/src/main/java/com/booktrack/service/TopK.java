@@ -0,0 +1,42 @@
+package com.booktrack.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the first {@code k} elements offered under {@code order} using a heap
+ * whose root is the worst element kept, so selecting from {@code n} candidates
+ * costs O(n log k) time and O(k) memory.
+ */
+public class TopK<T> {
+
+    private final int k;
+    private final Comparator<? super T> order;
+    private final PriorityQueue<T> heap;
+
+    public TopK(int k, Comparator<? super T> order) {
+        this.k = k;
+        this.order = order;
+        this.heap = new PriorityQueue<>(Math.max(1, k), order.reversed());
+    }
+
+    public void offer(T item) {
+        if (heap.size() < k) {
+            heap.add(item);
+        } else if (k > 0 && order.compare(item, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(item);
+        }
+    }
+
+    /**
+     * The kept elements, best first.
+     */
+    public List<T> result() {
+        List<T> out = new ArrayList<>(heap);
+        out.sort(order);
+        return out;
+    }
+}
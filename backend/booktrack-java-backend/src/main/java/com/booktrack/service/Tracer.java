@@ -0,0 +1,593 @@
+package com.booktrack.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process request tracing. {@link com.booktrack.filter.TracingFilter}
+ * opens a server span per API request (continuing a W3C {@code traceparent}
+ * if the caller sent one); code below it opens child spans for Mongo
+ * commands, Stripe calls, Socket.IO emits and other steps worth separating,
+ * so the time of a slow request can be attributed to a component.
+ * <p>
+ * Every request is recorded, and the keep-or-drop decision is made when it
+ * finishes: a trace is exported if it was sampled up front (the caller's
+ * sampled flag, or {@code app.tracing.sample-rate} with per-path overrides
+ * in {@code route-sample-rates}), if it took at least
+ * {@code slow-threshold-ms}, or if any span failed. Slow and failed requests
+ * are therefore always kept whatever the rate. Kept traces are queued and
+ * written in batches by the {@code trace-export} thread as OTLP/JSON
+ * ({@code ExportTraceServiceRequest}) documents: one per line to
+ * {@code app.tracing.file} and/or POSTed to an OTLP/HTTP collector at
+ * {@code app.tracing.otlp-endpoint}. A full queue drops traces rather than
+ * slowing requests down.
+ * <p>
+ * The current span is thread-local; work handed to another thread must pass
+ * its parent explicitly (see {@link ProviderLanes}).
+ */
+@org.springframework.stereotype.Service
+public class Tracer implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(Tracer.class);
+
+    public enum Kind {
+        INTERNAL(1), SERVER(2), CLIENT(3), PRODUCER(4);
+
+        private final int otlp;
+
+        Kind(int otlp) {
+            this.otlp = otlp;
+        }
+    }
+
+    private record RouteRate(String prefix, double rate) {
+    }
+
+    private final boolean enabled;
+    private final double sampleRate;
+    private final List<RouteRate> routeRates;
+    private final long slowNanos;
+    private final int maxSpans;
+    private final int batchSize;
+    private final String serviceName;
+    private final Path file;
+    private final long fileMaxBytes;
+    private final URI otlpEndpoint;
+    private final ObjectMapper objectMapper;
+    private final HttpClient http;
+    private final BlockingQueue<Trace> queue;
+    private final Thread exporter;
+    private final ThreadLocal<Span> current = new ThreadLocal<>();
+    private final Counter exported;
+    private final Counter unsampled;
+    private final Counter dropped;
+    private final Counter exportFailures;
+    private volatile boolean running = true;
+
+    public Tracer(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${app.tracing.enabled:true}") boolean enabled,
+            @Value("${app.tracing.sample-rate:0.01}") double sampleRate,
+            @Value("${app.tracing.route-sample-rates:}") String routeSampleRates,
+            @Value("${app.tracing.slow-threshold-ms:500}") long slowThresholdMs,
+            @Value("${app.tracing.max-spans-per-trace:500}") int maxSpans,
+            @Value("${app.tracing.queue-capacity:1000}") int queueCapacity,
+            @Value("${app.tracing.batch-size:100}") int batchSize,
+            @Value("${app.tracing.service-name:booktrack-backend}") String serviceName,
+            @Value("${app.tracing.file:logs/traces.jsonl}") String file,
+            @Value("${app.tracing.file-max-mb:100}") long fileMaxMb,
+            @Value("${app.tracing.otlp-endpoint:}") String otlpEndpoint
+    ) {
+        this.objectMapper = objectMapper;
+        this.sampleRate = sampleRate;
+        this.routeRates = parseRouteRates(routeSampleRates);
+        this.slowNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+        this.maxSpans = maxSpans;
+        this.batchSize = Math.max(1, batchSize);
+        this.serviceName = serviceName;
+        this.file = file.isBlank() ? null : Path.of(file);
+        this.fileMaxBytes = fileMaxMb * 1024 * 1024;
+        this.otlpEndpoint = otlpEndpoint.isBlank() ? null : URI.create(otlpEndpoint);
+        // With nowhere to export to there is nothing worth recording.
+        this.enabled = enabled && (this.file != null || this.otlpEndpoint != null);
+        this.http = this.otlpEndpoint == null ? null
+                : HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.exported = traces(meterRegistry, "exported");
+        this.unsampled = traces(meterRegistry, "unsampled");
+        this.dropped = traces(meterRegistry, "dropped");
+        this.exportFailures = Counter.builder("tracing.export.failures")
+                .description("Trace batches that could not be written or sent")
+                .register(meterRegistry);
+        this.exporter = new Thread(this::exportLoop, "trace-export");
+        exporter.setDaemon(true);
+        if (this.enabled) {
+            exporter.start();
+        }
+    }
+
+    /**
+     * A tracer that records nothing, for code constructed outside Spring.
+     */
+    public static Tracer disabled() {
+        return new Tracer(new ObjectMapper(), new SimpleMeterRegistry(), false, 0, "", 0, 0, 1, 1, "", "", 0, "");
+    }
+
+    private static Counter traces(MeterRegistry registry, String outcome) {
+        return Counter.builder("tracing.traces")
+                .description("Finished request traces by export decision")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static List<RouteRate> parseRouteRates(String spec) {
+        List<RouteRate> rates = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            int eq = part.lastIndexOf('=');
+            if (eq > 0) {
+                rates.add(new RouteRate(part.substring(0, eq).trim(), Double.parseDouble(part.substring(eq + 1).trim())));
+            }
+        }
+        // Longest prefix wins.
+        rates.sort(Comparator.comparingInt((RouteRate r) -> r.prefix().length()).reversed());
+        return rates;
+    }
+
+    // ---- spans
+
+    /**
+     * Starts the server span of a request and makes it current. Continues
+     * the trace in {@code traceparent} when it is a valid W3C header.
+     */
+    public Span startRequest(String name, String path, String traceparent) {
+        if (!enabled) {
+            return Span.NOOP;
+        }
+        long hi = 0;
+        long lo = 0;
+        long parent = 0;
+        boolean sampled = false;
+        if (traceparent != null && traceparent.length() == 55 && traceparent.startsWith("00-")
+                && traceparent.charAt(35) == '-' && traceparent.charAt(52) == '-') {
+            try {
+                hi = Long.parseUnsignedLong(traceparent, 3, 19, 16);
+                lo = Long.parseUnsignedLong(traceparent, 19, 35, 16);
+                parent = Long.parseUnsignedLong(traceparent, 36, 52, 16);
+                sampled = (Integer.parseInt(traceparent, 53, 55, 16) & 1) == 1;
+            } catch (NumberFormatException e) {
+                hi = lo = parent = 0;
+            }
+        }
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        if (hi == 0 && lo == 0) {
+            hi = rnd.nextLong();
+            lo = rnd.nextLong() | 1;
+            parent = 0;
+            sampled = false;
+        }
+        sampled |= rnd.nextDouble() < rateFor(path);
+        Trace trace = new Trace(hi, lo, sampled);
+        Span root = new Span(this, trace, parent, name, Kind.SERVER, current.get(), true);
+        trace.root = root;
+        trace.add(root);
+        current.set(root);
+        return root;
+    }
+
+    private double rateFor(String path) {
+        for (RouteRate r : routeRates) {
+            if (path.startsWith(r.prefix())) {
+                return r.rate();
+            }
+        }
+        return sampleRate;
+    }
+
+    /**
+     * Starts a child of the current span and makes it current until closed;
+     * a no-op span when no request is being traced on this thread.
+     */
+    public Span startSpan(String name, Kind kind) {
+        return startSpan(current.get(), name, kind);
+    }
+
+    /**
+     * Starts a child of {@code parent} (typically captured on another thread)
+     * and makes it current on this thread until closed.
+     */
+    public Span startSpan(Span parent, String name, Kind kind) {
+        if (parent == null || parent.trace == null || !parent.trace.hasRoom(maxSpans)) {
+            return Span.NOOP;
+        }
+        Span span = new Span(this, parent.trace, parent.id, name, kind, current.get(), true);
+        parent.trace.add(span);
+        current.set(span);
+        return span;
+    }
+
+    /**
+     * The span current on this thread, or {@code null}.
+     */
+    public Span current() {
+        return current.get();
+    }
+
+    void restore(Span previous) {
+        if (previous == null) {
+            current.remove();
+        } else {
+            current.set(previous);
+        }
+    }
+
+    void finish(Trace trace) {
+        Span root = trace.root;
+        boolean keep = trace.sampled || trace.failed || root.endNanos - root.startNanos >= slowNanos;
+        if (!keep) {
+            unsampled.increment();
+            return;
+        }
+        if (!queue.offer(trace)) {
+            dropped.increment();
+        }
+    }
+
+    // ---- Mongo
+
+    /**
+     * A driver listener recording each command issued from a traced thread
+     * as a client span. The sync driver reports start on the calling thread.
+     */
+    public CommandListener mongoCommandListener() {
+        Map<Long, Span> inFlight = new ConcurrentHashMap<>();
+        return new CommandListener() {
+            @Override
+            public void commandStarted(CommandStartedEvent event) {
+                Span parent = current.get();
+                if (parent == null || parent.trace == null || !parent.trace.hasRoom(maxSpans)) {
+                    return;
+                }
+                String command = event.getCommandName();
+                Span span = new Span(Tracer.this, parent.trace, parent.id, "mongo " + command, Kind.CLIENT, null, false);
+                span.tag("db.system", "mongodb")
+                        .tag("db.name", event.getDatabaseName())
+                        .tag("db.operation", command);
+                if (event.getCommand().get(command) instanceof org.bson.BsonString collection) {
+                    span.tag("db.mongodb.collection", collection.getValue());
+                }
+                parent.trace.add(span);
+                inFlight.put(key(event.getConnectionDescription().getConnectionId().getLocalValue(), event.getRequestId()), span);
+            }
+
+            @Override
+            public void commandSucceeded(CommandSucceededEvent event) {
+                Span span = inFlight.remove(key(event.getConnectionDescription().getConnectionId().getLocalValue(), event.getRequestId()));
+                if (span != null) {
+                    span.end(span.startNanos + event.getElapsedTime(TimeUnit.NANOSECONDS));
+                }
+            }
+
+            @Override
+            public void commandFailed(CommandFailedEvent event) {
+                Span span = inFlight.remove(key(event.getConnectionDescription().getConnectionId().getLocalValue(), event.getRequestId()));
+                if (span != null) {
+                    span.fail(event.getThrowable());
+                    span.end(span.startNanos + event.getElapsedTime(TimeUnit.NANOSECONDS));
+                }
+            }
+        };
+    }
+
+    private static long key(long connectionId, int requestId) {
+        return (connectionId << 32) | (requestId & 0xffffffffL);
+    }
+
+    // ---- export
+
+    private void exportLoop() {
+        List<Trace> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Trace first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                export(batch);
+            } catch (InterruptedException e) {
+                running = false;
+            } catch (RuntimeException e) {
+                exportFailures.increment();
+                log.warn("Trace export failed", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void export(List<Trace> batch) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(encode(batch));
+        } catch (IOException e) {
+            exportFailures.increment();
+            log.warn("Could not encode {} traces", batch.size(), e);
+            return;
+        }
+        if (file != null) {
+            try {
+                writeLine(body);
+            } catch (IOException e) {
+                exportFailures.increment();
+                log.warn("Could not write traces to {}: {}", file, e.getMessage());
+            }
+        }
+        if (otlpEndpoint != null) {
+            try {
+                HttpResponse<Void> res = http.send(HttpRequest.newBuilder(otlpEndpoint)
+                        .timeout(Duration.ofSeconds(5))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                        .build(), HttpResponse.BodyHandlers.discarding());
+                if (res.statusCode() >= 300) {
+                    exportFailures.increment();
+                    log.warn("OTLP collector {} answered {}", otlpEndpoint, res.statusCode());
+                }
+            } catch (IOException e) {
+                exportFailures.increment();
+                log.warn("Could not send traces to {}: {}", otlpEndpoint, e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+        }
+        exported.increment(batch.size());
+    }
+
+    private void writeLine(byte[] body) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        if (fileMaxBytes > 0 && Files.exists(file) && Files.size(file) + body.length > fileMaxBytes) {
+            Files.move(file, file.resolveSibling(file.getFileName() + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        }
+        try (OutputStream out = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            out.write(body);
+            out.write('\n');
+        }
+    }
+
+    private Map<String, Object> encode(List<Trace> batch) {
+        List<Map<String, Object>> spans = new ArrayList<>();
+        for (Trace trace : batch) {
+            for (Span span : trace.spans()) {
+                if (span.endNanos >= 0) {
+                    spans.add(span.toOtlp());
+                }
+            }
+        }
+        Map<String, Object> scope = new LinkedHashMap<>();
+        scope.put("scope", Map.of("name", "com.booktrack"));
+        scope.put("spans", spans);
+        Map<String, Object> resource = new LinkedHashMap<>();
+        resource.put("resource", Map.of("attributes", List.of(attribute("service.name", serviceName))));
+        resource.put("scopeSpans", List.of(scope));
+        return Map.of("resourceSpans", List.of(resource));
+    }
+
+    private static Map<String, Object> attribute(String key, Object value) {
+        Map<String, Object> v = new LinkedHashMap<>();
+        if (value instanceof Integer || value instanceof Long) {
+            v.put("intValue", value.toString());
+        } else if (value instanceof Number n) {
+            v.put("doubleValue", n.doubleValue());
+        } else if (value instanceof Boolean b) {
+            v.put("boolValue", b);
+        } else {
+            v.put("stringValue", String.valueOf(value));
+        }
+        return Map.of("key", key, "value", v);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        exporter.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    // ---- model
+
+    static final class Trace {
+        final long traceIdHigh;
+        final long traceIdLow;
+        final boolean sampled;
+        // Wall clock at the root's start; span times are offsets from it.
+        final long epochNanos;
+        final long nanoBase = System.nanoTime();
+        private final List<Span> spans = new ArrayList<>();
+        volatile Span root;
+        volatile boolean failed;
+
+        Trace(long traceIdHigh, long traceIdLow, boolean sampled) {
+            this.traceIdHigh = traceIdHigh;
+            this.traceIdLow = traceIdLow;
+            this.sampled = sampled;
+            Instant now = Instant.now();
+            this.epochNanos = now.getEpochSecond() * 1_000_000_000L + now.getNano();
+        }
+
+        synchronized void add(Span span) {
+            spans.add(span);
+        }
+
+        synchronized boolean hasRoom(int max) {
+            return spans.size() < max;
+        }
+
+        synchronized List<Span> spans() {
+            return new ArrayList<>(spans);
+        }
+    }
+
+    /**
+     * A timed operation within a trace. Close it (try-with-resources) to end
+     * it; a span started as current restores the previous current span.
+     */
+    public static final class Span implements AutoCloseable {
+
+        static final Span NOOP = new Span(null, null, 0, "", Kind.INTERNAL, null, false);
+
+        private final Tracer tracer;
+        private final Trace trace;
+        private final long id;
+        private final long parentId;
+        private final Kind kind;
+        private final Span previous;
+        private final boolean scoped;
+        private final long startNanos = System.nanoTime();
+        private final Map<String, Object> attributes = new LinkedHashMap<>();
+        private volatile String name;
+        private volatile long endNanos = -1;
+        private volatile String error;
+
+        private Span(Tracer tracer, Trace trace, long parentId, String name, Kind kind, Span previous, boolean scoped) {
+            this.tracer = tracer;
+            this.trace = trace;
+            this.id = trace == null ? 0 : ThreadLocalRandom.current().nextLong() | 1;
+            this.parentId = parentId;
+            this.name = name;
+            this.kind = kind;
+            this.previous = previous;
+            this.scoped = scoped;
+        }
+
+        public boolean isRecording() {
+            return trace != null;
+        }
+
+        public Span tag(String key, Object value) {
+            if (trace != null && value != null) {
+                synchronized (attributes) {
+                    attributes.put(key, value);
+                }
+            }
+            return this;
+        }
+
+        public Span rename(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public Span fail(Throwable error) {
+            return fail(error.getClass().getSimpleName() + ": " + error.getMessage());
+        }
+
+        public Span fail(String message) {
+            if (trace != null) {
+                error = message;
+                trace.failed = true;
+            }
+            return this;
+        }
+
+        /**
+         * Hex trace id, or {@code null} for a no-op span.
+         */
+        public String traceId() {
+            return trace == null ? null : hex(trace.traceIdHigh) + hex(trace.traceIdLow);
+        }
+
+        public String spanId() {
+            return trace == null ? null : hex(id);
+        }
+
+        /**
+         * A W3C {@code traceparent} header naming this span.
+         */
+        public String traceparent() {
+            return trace == null ? null : "00-" + traceId() + "-" + spanId() + (trace.sampled ? "-01" : "-00");
+        }
+
+        @Override
+        public void close() {
+            if (trace == null) {
+                return;
+            }
+            end(System.nanoTime());
+            if (scoped) {
+                tracer.restore(previous);
+            }
+            if (trace.root == this) {
+                tracer.finish(trace);
+            }
+        }
+
+        void end(long nanos) {
+            if (endNanos < 0) {
+                endNanos = nanos;
+            }
+        }
+
+        Map<String, Object> toOtlp() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("traceId", traceId());
+            m.put("spanId", spanId());
+            if (parentId != 0) {
+                m.put("parentSpanId", hex(parentId));
+            }
+            m.put("name", name);
+            m.put("kind", kind.otlp);
+            m.put("startTimeUnixNano", Long.toString(trace.epochNanos + (startNanos - trace.nanoBase)));
+            m.put("endTimeUnixNano", Long.toString(trace.epochNanos + (endNanos - trace.nanoBase)));
+            List<Map<String, Object>> attrs = new ArrayList<>();
+            synchronized (attributes) {
+                attributes.forEach((k, v) -> attrs.add(attribute(k, v)));
+            }
+            m.put("attributes", attrs);
+            if (error != null) {
+                m.put("status", Map.of("code", 2, "message", error));
+            }
+            return m;
+        }
+
+        private static String hex(long v) {
+            String s = Long.toHexString(v);
+            return "0".repeat(16 - s.length()) + s;
+        }
+    }
+}
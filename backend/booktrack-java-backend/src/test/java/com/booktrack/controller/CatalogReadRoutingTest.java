@@ -0,0 +1,159 @@
+package com.booktrack.controller;
+
+import com.booktrack.config.MongoConfig;
+import com.booktrack.model.Review;
+import com.booktrack.model.Service;
+import com.booktrack.service.CatalogResponseCache;
+import com.booktrack.service.CatalogSearchService;
+import com.booktrack.service.CatalogSnapshotService;
+import com.mongodb.ReadPreference;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Parameter;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Which template, and so which read preference, each catalog read goes
+ * through: public reads on {@code catalogMongoTemplate}, cache loaders on the
+ * primary {@code mongoTemplate}.
+ */
+class CatalogReadRoutingTest {
+
+    private MongoTemplate primary;
+    private MongoTemplate catalog;
+    private CatalogResponseCache responseCache;
+    private CatalogSnapshotService snapshot;
+    private ApiController controller;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        primary = mock(MongoTemplate.class);
+        catalog = mock(MongoTemplate.class);
+        responseCache = mock(CatalogResponseCache.class);
+        snapshot = mock(CatalogSnapshotService.class);
+        controller = newController();
+    }
+
+    @Test
+    void serviceDetailReadsFromCatalogTemplate() {
+        Service service = new Service();
+        service.setId("s1");
+        when(catalog.findOne(any(Query.class), eq(Service.class))).thenReturn(service);
+
+        controller.getService("s1");
+
+        verify(catalog).findOne(any(Query.class), eq(Service.class));
+        verify(catalog).find(any(Query.class), eq(Review.class));
+        verifyNoInteractions(primary);
+    }
+
+    @Test
+    void serviceReviewsReadFromCatalogTemplate() {
+        controller.getServiceReviews("s1");
+
+        verify(catalog).find(any(Query.class), eq(Review.class));
+        verifyNoInteractions(primary);
+    }
+
+    @Test
+    void filteredListingReadsFromCatalogTemplate() {
+        controller.getServices(null, "Berlin", null, 50.0, null, null);
+
+        verify(catalog).find(any(Query.class), eq(Service.class));
+        verifyNoInteractions(primary, responseCache);
+    }
+
+    @Test
+    void cachedListingLoadsFromPrimary() {
+        when(snapshot.summaries(any())).thenReturn(null);
+        when(responseCache.get(any(), any())).thenAnswer(inv -> {
+            inv.getArgument(1, Supplier.class).get();
+            return new CatalogResponseCache.Entry(0, new byte[0], new byte[0], null, new HashMap<>());
+        });
+
+        controller.getServices("cleaning", null, null, null, null, null);
+
+        verify(primary, atLeastOnce()).find(any(Query.class), eq(Service.class));
+        verifyNoInteractions(catalog);
+    }
+
+    @Test
+    void searchUsesCatalogTemplate() {
+        assertTrue(injectsCatalogTemplate(CatalogSearchService.class.getDeclaredConstructors()[0]));
+    }
+
+    @Test
+    void catalogTemplatePrefersSecondariesOnlyWhenEnabled() {
+        MongoConfig config = new MongoConfig();
+        try (MongoClient client = MongoClients.create("mongodb://127.0.0.1:1")) {
+            SimpleMongoClientDatabaseFactory factory = new SimpleMongoClientDatabaseFactory(client, "routing_test");
+            MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+
+            assertFalse(config.mongoTemplate(factory, converter).hasReadPreference());
+            assertFalse(config.catalogMongoTemplate(factory, converter, false, 90).hasReadPreference());
+            assertEquals(ReadPreference.secondaryPreferred(90, TimeUnit.SECONDS),
+                    config.catalogMongoTemplate(factory, converter, true, 90).getReadPreference());
+        }
+    }
+
+    /**
+     * The controller with every dependency mocked, the two templates told
+     * apart by the same {@code @Qualifier} Spring resolves them by.
+     */
+    private ApiController newController() throws Exception {
+        Constructor<?> ctor = ApiController.class.getDeclaredConstructors()[0];
+        Parameter[] params = ctor.getParameters();
+        Object[] args = new Object[params.length];
+        for (int i = 0; i < params.length; i++) {
+            Class<?> type = params[i].getType();
+            if (type == MongoTemplate.class) {
+                args[i] = isCatalogTemplate(params[i]) ? catalog : primary;
+            } else if (type == CatalogResponseCache.class) {
+                args[i] = responseCache;
+            } else if (type == CatalogSnapshotService.class) {
+                args[i] = snapshot;
+            } else {
+                args[i] = mock(type);
+            }
+        }
+        return (ApiController) ctor.newInstance(args);
+    }
+
+    private static boolean injectsCatalogTemplate(Constructor<?> ctor) {
+        for (Parameter p : ctor.getParameters()) {
+            if (p.getType() == MongoTemplate.class && isCatalogTemplate(p)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isCatalogTemplate(Parameter p) {
+        Qualifier q = p.getAnnotation(Qualifier.class);
+        return q != null && q.value().equals("catalogMongoTemplate");
+    }
+}
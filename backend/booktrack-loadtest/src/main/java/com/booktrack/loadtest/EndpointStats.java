@@ -0,0 +1,79 @@
+package com.booktrack.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram, error count and status breakdown for one endpoint.
+ * Latencies are recorded in microseconds.
+ */
+final class EndpointStats {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(2);
+
+    private final String endpoint;
+    private final Histogram latency = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+    private final LongAdder errors = new LongAdder();
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+    EndpointStats(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    void record(long elapsedNanos, int status) {
+        latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(elapsedNanos), MAX_LATENCY_MICROS));
+        if (status >= 400) {
+            errors.increment();
+        }
+        outcomes.computeIfAbsent(String.valueOf(status), k -> new LongAdder()).increment();
+    }
+
+    void recordFailure(long elapsedNanos, Throwable error) {
+        latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(elapsedNanos), MAX_LATENCY_MICROS));
+        errors.increment();
+        outcomes.computeIfAbsent(error.getClass().getSimpleName(), k -> new LongAdder()).increment();
+    }
+
+    void reset() {
+        latency.reset();
+        errors.reset();
+        outcomes.clear();
+    }
+
+    String endpoint() {
+        return endpoint;
+    }
+
+    Map<String, Object> summary(double seconds) {
+        long count = latency.getTotalCount();
+        Map<String, Object> m = new java.util.LinkedHashMap<>();
+        m.put("endpoint", endpoint);
+        m.put("requests", count);
+        m.put("throughput_per_sec", round(count / seconds));
+        m.put("errors", errors.sum());
+        m.put("error_rate", count == 0 ? 0.0 : round((double) errors.sum() / count));
+        m.put("p50_ms", millis(latency.getValueAtPercentile(50)));
+        m.put("p90_ms", millis(latency.getValueAtPercentile(90)));
+        m.put("p99_ms", millis(latency.getValueAtPercentile(99)));
+        m.put("p999_ms", millis(latency.getValueAtPercentile(99.9)));
+        m.put("max_ms", millis(latency.getMaxValue()));
+        Map<String, Long> byOutcome = new TreeMap<>();
+        outcomes.forEach((k, v) -> byOutcome.put(k, v.sum()));
+        m.put("outcomes", byOutcome);
+        return m;
+    }
+
+    private static double millis(long micros) {
+        return round(micros / 1000.0);
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 1000.0) / 1000.0;
+    }
+}
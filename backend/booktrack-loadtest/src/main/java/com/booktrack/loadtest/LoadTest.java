@@ -0,0 +1,143 @@
+package com.booktrack.loadtest;
+
+import com.booktrack.BookTrackApplication;
+import com.booktrack.service.JwtService;
+import com.booktrack.service.PasswordService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.stripe.Stripe;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Starts the backend against an in-process Mongo and a stubbed Stripe API,
+ * seeds data, runs a mixed workload and reports per-endpoint throughput,
+ * latency percentiles and error rates. Runs fully offline:
+ *
+ * <pre>
+ * mvn -f ../booktrack-java-backend install -DskipTests
+ * mvn package && java -jar target/loadtest.jar --concurrency 32 --duration 60
+ * </pre>
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions opts = LoadTestOptions.parse(args);
+
+        MongoServer mongo = new MongoServer(new MemoryBackend());
+        InetSocketAddress mongoAddress = mongo.bind();
+        StripeStub stripe = new StripeStub();
+        Stripe.overrideApiBase(stripe.baseUrl());
+
+        ConfigurableApplicationContext ctx = new SpringApplicationBuilder(BookTrackApplication.class).run(
+                "--spring.data.mongodb.uri=mongodb://127.0.0.1:" + mongoAddress.getPort(),
+                "--spring.data.mongodb.database=booktrack_loadtest",
+                "--server.port=0",
+                "--socketio.host=127.0.0.1",
+                "--socketio.port=" + freePort(),
+                "--app.stripe.api-key=sk_test_loadtest",
+                "--app.recommendations.snapshot-path=",
+                "--app.catalog.snapshot.path=",
+                "--app.tracing.file=target/traces.jsonl",
+                "--app.ratelimit.enabled=false",
+                "--logging.level.root=WARN"
+        );
+        try {
+            int port = ((WebServerApplicationContext) ctx).getWebServer().getPort();
+
+            System.out.printf("Seeding %d users, %d providers, %d services, %d bookings%n",
+                    opts.users(), opts.providers(), opts.services(), opts.bookings());
+            Seeder.Dataset data = new Seeder(
+                    ctx.getBean(MongoTemplate.class),
+                    ctx.getBean(PasswordService.class),
+                    ctx.getBean(JwtService.class)
+            ).seed(opts);
+
+            Workload workload = new Workload("http://127.0.0.1:" + port, data, opts.mix());
+            run(workload, opts);
+        } finally {
+            ctx.close();
+            stripe.close();
+            mongo.shutdownNow();
+        }
+    }
+
+    private static void run(Workload workload, LoadTestOptions opts) throws InterruptedException, IOException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService workers = Executors.newFixedThreadPool(opts.concurrency());
+        for (int i = 0; i < opts.concurrency(); i++) {
+            workers.execute(() -> {
+                while (running.get()) {
+                    workload.runOnce();
+                }
+            });
+        }
+
+        System.out.printf("Warming up for %ds with %d workers%n", opts.warmupSeconds(), opts.concurrency());
+        TimeUnit.SECONDS.sleep(opts.warmupSeconds());
+        workload.resetStats();
+
+        System.out.printf("Measuring for %ds%n", opts.durationSeconds());
+        long start = System.nanoTime();
+        TimeUnit.SECONDS.sleep(opts.durationSeconds());
+        double seconds = (System.nanoTime() - start) / 1e9;
+        List<Map<String, Object>> endpoints = new ArrayList<>();
+        workload.stats().values().stream()
+                .sorted(Comparator.comparing(EndpointStats::endpoint))
+                .forEach(s -> endpoints.add(s.summary(seconds)));
+
+        running.set(false);
+        workers.shutdown();
+        workers.awaitTermination(60, TimeUnit.SECONDS);
+
+        print(endpoints, seconds);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("options", opts);
+        report.put("measured_seconds", seconds);
+        report.put("endpoints", endpoints);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(new File(opts.reportFile()), report);
+        System.out.println("Report written to " + opts.reportFile());
+    }
+
+    private static void print(List<Map<String, Object>> endpoints, double seconds) {
+        String row = "%-48s %9s %9s %8s %9s %9s %9s %9s%n";
+        System.out.printf("%nResults over %.1fs%n", seconds);
+        System.out.printf(row, "endpoint", "requests", "req/s", "err%", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        long total = 0;
+        for (Map<String, Object> e : endpoints) {
+            total += (long) e.get("requests");
+            System.out.printf(row, e.get("endpoint"), e.get("requests"), e.get("throughput_per_sec"),
+                    String.format("%.2f", (double) e.get("error_rate") * 100), e.get("p50_ms"), e.get("p90_ms"),
+                    e.get("p99_ms"), e.get("max_ms"));
+        }
+        System.out.printf("Total: %d requests, %.1f req/s%n", total, total / seconds);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
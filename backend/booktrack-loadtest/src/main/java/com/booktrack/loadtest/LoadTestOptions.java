@@ -0,0 +1,57 @@
+package com.booktrack.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Command line options, given as {@code --name value}. The {@code mix} option
+ * takes comma separated {@code operation=weight} pairs, e.g.
+ * {@code browse=60,view=20,book=8,accept=5,pay=4,review=3,analytics=2,search=10,facets=3,suggest=10}.
+ */
+record LoadTestOptions(
+        int users,
+        int providers,
+        int services,
+        int bookings,
+        int concurrency,
+        int warmupSeconds,
+        int durationSeconds,
+        Map<Operation, Integer> mix,
+        String reportFile
+) {
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected --name value, got: " + args[i]);
+            }
+            values.put(args[i].substring(2), args[++i]);
+        }
+        return new LoadTestOptions(
+                intValue(values, "users", 200),
+                intValue(values, "providers", 20),
+                intValue(values, "services", 500),
+                intValue(values, "bookings", 2000),
+                intValue(values, "concurrency", 16),
+                intValue(values, "warmup", 10),
+                intValue(values, "duration", 30),
+                parseMix(values.getOrDefault("mix", "browse=60,view=20,book=8,accept=5,pay=4,review=3,analytics=2,search=10,facets=3,suggest=10")),
+                values.getOrDefault("report", "loadtest-report.json")
+        );
+    }
+
+    private static int intValue(Map<String, String> values, String name, int def) {
+        String v = values.get(name);
+        return v == null ? def : Integer.parseInt(v);
+    }
+
+    private static Map<Operation, Integer> parseMix(String spec) {
+        Map<Operation, Integer> mix = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split("=");
+            mix.put(Operation.valueOf(kv[0].trim().toUpperCase()), Integer.parseInt(kv[1].trim()));
+        }
+        return mix;
+    }
+}
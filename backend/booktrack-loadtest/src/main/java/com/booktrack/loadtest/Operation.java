@@ -0,0 +1,14 @@
+package com.booktrack.loadtest;
+
+enum Operation {
+    BROWSE,
+    VIEW,
+    BOOK,
+    ACCEPT,
+    PAY,
+    REVIEW,
+    ANALYTICS,
+    SEARCH,
+    FACETS,
+    SUGGEST
+}
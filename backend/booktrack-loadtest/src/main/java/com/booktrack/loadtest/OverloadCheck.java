@@ -0,0 +1,216 @@
+package com.booktrack.loadtest;
+
+import com.booktrack.BookTrackApplication;
+import com.booktrack.model.Service;
+import com.booktrack.model.User;
+import com.booktrack.service.ConcurrencyLimiter;
+import com.booktrack.service.JwtService;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Floods an in-process backend with anonymous, uncacheable catalog reads
+ * while a few clients keep creating bookings, once with load shedding enabled
+ * and once without, and prints both endpoints' latency and status breakdowns.
+ * Bookings run alone for the warmup first, so that the limiter has seen
+ * normal latency before the flood starts; only the flood is measured.
+ * With shedding, catalog reads should be turned away with 503s while
+ * bookings keep succeeding; exits non-zero if any booking failed in that run.
+ *
+ * <pre>
+ * java -cp target/loadtest.jar -Dloader.main=com.booktrack.loadtest.OverloadCheck \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher \
+ *     [--flood 64] [--bookers 4] [--services 300] [--warmup 5] [--duration 20] [--app.x=y ...]
+ * </pre>
+ * Arguments starting with {@code --app.} are passed to the backend, e.g. to
+ * try other {@code app.load-shedding.*} settings.
+ */
+public final class OverloadCheck {
+
+    private OverloadCheck() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int flood = 64;
+        int bookers = 4;
+        int services = 300;
+        int warmupSeconds = 5;
+        int durationSeconds = 20;
+        List<String> appArgs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--flood" -> flood = Integer.parseInt(args[++i]);
+                case "--bookers" -> bookers = Integer.parseInt(args[++i]);
+                case "--services" -> services = Integer.parseInt(args[++i]);
+                case "--warmup" -> warmupSeconds = Integer.parseInt(args[++i]);
+                case "--duration" -> durationSeconds = Integer.parseInt(args[++i]);
+                default -> {
+                    if (!args[i].startsWith("--app.")) {
+                        throw new IllegalArgumentException("Unknown option: " + args[i]);
+                    }
+                    appArgs.add(args[i]);
+                }
+            }
+        }
+
+        MongoServer mongo = new MongoServer(new MemoryBackend());
+        InetSocketAddress mongoAddress = mongo.bind();
+        boolean ok = true;
+        try {
+            for (boolean shedding : new boolean[]{true, false}) {
+                System.out.printf("%n== load shedding %s ==%n", shedding ? "enabled" : "disabled");
+                EndpointStats[] stats = run(mongoAddress, shedding, appArgs, flood, bookers, services,
+                        warmupSeconds, durationSeconds);
+                for (EndpointStats s : stats) {
+                    System.out.println(s.summary(durationSeconds));
+                }
+                if (shedding) {
+                    Map<String, Object> bookings = stats[1].summary(durationSeconds);
+                    ok = ((Number) bookings.get("errors")).longValue() == 0
+                            && ((Number) bookings.get("requests")).longValue() > 0;
+                }
+            }
+        } finally {
+            mongo.shutdownNow();
+        }
+        System.out.println(ok ? "OK" : "BOOKINGS FAILED UNDER LOAD SHEDDING");
+        System.exit(ok ? 0 : 1);
+    }
+
+    private static EndpointStats[] run(InetSocketAddress mongoAddress, boolean shedding, List<String> appArgs,
+                                       int flood, int bookers, int services, int warmupSeconds,
+                                       int durationSeconds) throws Exception {
+        List<String> launch = new ArrayList<>(List.of(
+                "--spring.data.mongodb.uri=mongodb://127.0.0.1:" + mongoAddress.getPort(),
+                "--spring.data.mongodb.database=booktrack_overload_" + shedding,
+                "--server.port=0",
+                "--socketio.host=127.0.0.1",
+                "--socketio.port=" + freePort(),
+                "--app.stripe.api-key=sk_test_overload",
+                "--app.recommendations.snapshot-path=",
+                "--app.catalog.snapshot.path=",
+                "--app.tracing.file=",
+                "--app.ratelimit.enabled=false",
+                "--app.load-shedding.enabled=" + shedding,
+                "--logging.level.root=WARN"
+        ));
+        launch.addAll(appArgs);
+        ConfigurableApplicationContext ctx = new SpringApplicationBuilder(BookTrackApplication.class)
+                .run(launch.toArray(new String[0]));
+        try {
+            MongoTemplate mongoTemplate = ctx.getBean(MongoTemplate.class);
+            User user = User.newUser("overload-user@loadtest.local", "Overload User", "user", "555-0100", "x");
+            User provider = User.newUser("overload-provider@loadtest.local", "Provider", "provider", "555-0200", "x");
+            List<Service> catalog = new ArrayList<>(services);
+            for (int i = 0; i < services; i++) {
+                catalog.add(Service.newService(provider, "Service " + i, "Overload service " + i, "cleaning", 10 + i,
+                        "City", 60, "https://images.example.com/" + i + ".jpg"));
+            }
+            mongoTemplate.insert(List.of(user, provider), User.class);
+            mongoTemplate.insert(catalog, Service.class);
+            String token = "Bearer " + ctx.getBean(JwtService.class).createAccessToken(user);
+            String base = "http://127.0.0.1:" + ((WebServerApplicationContext) ctx).getWebServer().getPort() + "/api";
+
+            HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+            // A location filter bypasses the response cache: every call reads Mongo.
+            HttpRequest browse = HttpRequest.newBuilder(URI.create(base + "/services?location=City"))
+                    .timeout(Duration.ofSeconds(60)).GET().build();
+            EndpointStats browsing = new EndpointStats("GET /api/services?location= (anonymous)");
+            EndpointStats booking = new EndpointStats("POST /api/bookings");
+            AtomicInteger slot = new AtomicInteger();
+            long floodStart = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+            long deadline = floodStart + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < flood; i++) {
+                threads.add(new Thread(() -> {
+                    sleep(TimeUnit.NANOSECONDS.toMillis(floodStart - System.nanoTime()));
+                    while (System.nanoTime() < deadline) {
+                        if (send(http, browse, browsing) == 503) {
+                            // Well-behaved clients honour Retry-After instead of
+                            // hammering a node that just said it is overloaded.
+                            sleep(TimeUnit.SECONDS.toMillis(1));
+                        }
+                    }
+                }, "flood-" + i));
+            }
+            for (int i = 0; i < bookers; i++) {
+                threads.add(new Thread(() -> {
+                    while (System.nanoTime() < deadline) {
+                        int n = slot.getAndIncrement();
+                        String body = String.format("{\"serviceId\":\"%s\",\"date\":\"2030-01-%02d\",\"time\":\"%02d:%02d\"}",
+                                catalog.get(n % catalog.size()).getId(), 1 + n / 1440 % 28, n / 60 % 24, n % 60);
+                        send(http, HttpRequest.newBuilder(URI.create(base + "/bookings"))
+                                .timeout(Duration.ofSeconds(60))
+                                .header("Authorization", token)
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofString(body))
+                                .build(), booking);
+                    }
+                }, "booker-" + i));
+            }
+            threads.forEach(Thread::start);
+            sleep(TimeUnit.NANOSECONDS.toMillis(floodStart - System.nanoTime()));
+            booking.reset();
+            for (Thread t : threads) {
+                t.join();
+            }
+            if (shedding) {
+                System.out.println("Concurrency limit at end of run: " + ctx.getBean(ConcurrencyLimiter.class).limit());
+            }
+            return new EndpointStats[]{browsing, booking};
+        } finally {
+            ctx.close();
+        }
+    }
+
+    private static int send(HttpClient http, HttpRequest request, EndpointStats stats) {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<Void> res = http.send(request, HttpResponse.BodyHandlers.discarding());
+            stats.record(System.nanoTime() - start, res.statusCode());
+            return res.statusCode();
+        } catch (IOException e) {
+            stats.recordFailure(System.nanoTime() - start, e);
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
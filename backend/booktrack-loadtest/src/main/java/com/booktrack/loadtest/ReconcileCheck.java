@@ -0,0 +1,181 @@
+package com.booktrack.loadtest;
+
+import com.booktrack.BookTrackApplication;
+import com.booktrack.model.Booking;
+import com.booktrack.model.PaymentTransaction;
+import com.booktrack.model.Service;
+import com.booktrack.model.User;
+import com.booktrack.service.PaymentReconciler;
+import com.stripe.Stripe;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the payment reconciler against an in-process Mongo and the Stripe
+ * stand-in and checks what it did. Seeds pending checkout transactions old
+ * enough to be picked up, cycling through sessions that the stub reports as
+ * paid, open, expired and missing, triggers one run and compares the report
+ * and the stored transactions and bookings with what the stub answered.
+ * Exits non-zero on any mismatch.
+ *
+ * <pre>
+ * java -cp target/loadtest.jar -Dloader.main=com.booktrack.loadtest.ReconcileCheck \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher \
+ *     [--transactions 1000] [--latency-ms 20] [--concurrency 4]
+ * </pre>
+ */
+public final class ReconcileCheck {
+
+    private static final String[] OUTCOMES = {"paid", "paid", "open", "expired", "missing"};
+
+    private ReconcileCheck() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int transactions = 1000;
+        long latencyMillis = 20;
+        int concurrency = 4;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--transactions" -> transactions = Integer.parseInt(args[++i]);
+                case "--latency-ms" -> latencyMillis = Long.parseLong(args[++i]);
+                case "--concurrency" -> concurrency = Integer.parseInt(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        MongoServer mongo = new MongoServer(new MemoryBackend());
+        InetSocketAddress mongoAddress = mongo.bind();
+        StripeStub stripe = new StripeStub(latencyMillis);
+        Stripe.overrideApiBase(stripe.baseUrl());
+
+        ConfigurableApplicationContext ctx = new SpringApplicationBuilder(BookTrackApplication.class).run(
+                "--spring.data.mongodb.uri=mongodb://127.0.0.1:" + mongoAddress.getPort(),
+                "--spring.data.mongodb.database=booktrack_reconcile",
+                "--server.port=0",
+                "--socketio.host=127.0.0.1",
+                "--socketio.port=" + freePort(),
+                "--app.stripe.api-key=sk_test_reconcile",
+                "--app.recommendations.snapshot-path=",
+                "--app.catalog.snapshot.path=",
+                "--app.tracing.file=",
+                "--app.payments.reconcile.enabled=false",
+                "--app.payments.reconcile.concurrency=" + concurrency,
+                "--logging.level.root=WARN"
+        );
+        boolean ok;
+        try {
+            MongoTemplate mongoTemplate = ctx.getBean(MongoTemplate.class);
+            int[] expected = seed(mongoTemplate, transactions);
+
+            PaymentReconciler reconciler = ctx.getBean(PaymentReconciler.class);
+            long start = System.nanoTime();
+            if (!reconciler.reconcile()) {
+                throw new IllegalStateException("Reconciler already running");
+            }
+            while (reconciler.isRunning()) {
+                TimeUnit.MILLISECONDS.sleep(20);
+            }
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            Map<String, Object> report = reconciler.lastReport();
+            System.out.printf("Reconciled %d transactions in %d ms (stub latency %d ms, concurrency %d)%n",
+                    transactions, millis, latencyMillis, concurrency);
+            System.out.println("Report: " + report);
+
+            ok = check("scanned", report.get("scanned"), transactions)
+                    & check("paid", report.get("paid"), expected[0])
+                    & check("still_open", report.get("still_open"), expected[1])
+                    & check("expired", report.get("expired"), expected[2])
+                    & check("failed", report.get("failed"), expected[3])
+                    & check("bookings_marked_paid", report.get("bookings_marked_paid"), expected[0])
+                    & check("paid transactions", count(mongoTemplate, PaymentTransaction.class, "paid"), expected[0])
+                    & check("expired transactions", count(mongoTemplate, PaymentTransaction.class, "expired"), expected[2])
+                    & check("pending transactions", count(mongoTemplate, PaymentTransaction.class, "pending"),
+                    expected[1] + expected[3])
+                    & check("paid bookings", count(mongoTemplate, Booking.class, "paid"), expected[0]);
+        } finally {
+            ctx.close();
+            stripe.close();
+            mongo.shutdownNow();
+        }
+        System.out.println(ok ? "OK" : "MISMATCH");
+        System.exit(ok ? 0 : 1);
+    }
+
+    /**
+     * Seeds one booking and pending transaction per outcome slot and returns
+     * the expected {paid, open, expired, missing} counts.
+     */
+    private static int[] seed(MongoTemplate mongoTemplate, int transactions) {
+        User user = User.newUser("reconcile-user@loadtest.local", "Reconcile User", "user", "555-0100", "x");
+        List<User> providers = new ArrayList<>();
+        List<Service> services = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            User p = User.newUser("reconcile-provider" + i + "@loadtest.local", "Provider " + i, "provider", "555-0200", "x");
+            providers.add(p);
+            services.add(Service.newService(p, "Service " + i, "Reconcile service " + i, "cleaning", 50, "City", 60,
+                    "https://images.example.com/" + i + ".jpg"));
+        }
+        mongoTemplate.insert(user);
+        mongoTemplate.insert(providers, User.class);
+        mongoTemplate.insert(services, Service.class);
+
+        Instant created = Instant.now().minus(Duration.ofHours(1));
+        int[] expected = new int[4];
+        List<Booking> bookings = new ArrayList<>(transactions);
+        List<PaymentTransaction> txs = new ArrayList<>(transactions);
+        for (int i = 0; i < transactions; i++) {
+            String outcome = OUTCOMES[i % OUTCOMES.length];
+            switch (outcome) {
+                case "paid" -> expected[0]++;
+                case "open" -> expected[1]++;
+                case "expired" -> expected[2]++;
+                default -> expected[3]++;
+            }
+            Booking b = Booking.newBooking(user, services.get(i % services.size()), "2026-06-01", "10:00");
+            bookings.add(b);
+            PaymentTransaction tx = PaymentTransaction.pending(
+                    "cs_test_" + outcome + "_" + i, b, user.getId(), "usd", Map.of("booking_id", b.getId()));
+            // Distinct, slightly shuffled creation times exercise the keyset paging.
+            tx.setCreatedAt(created.plusMillis((i * 7919L) % transactions));
+            txs.add(tx);
+        }
+        mongoTemplate.insert(bookings, Booking.class);
+        mongoTemplate.insert(txs, PaymentTransaction.class);
+        return expected;
+    }
+
+    private static long count(MongoTemplate mongoTemplate, Class<?> type, String paymentStatus) {
+        return mongoTemplate.count(Query.query(Criteria.where("paymentStatus").is(paymentStatus)), type);
+    }
+
+    private static boolean check(String what, Object actual, long expected) {
+        boolean ok = actual instanceof Number n && n.longValue() == expected;
+        if (!ok) {
+            System.out.printf("MISMATCH %s: expected %d, got %s%n", what, expected, actual);
+        }
+        return ok;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
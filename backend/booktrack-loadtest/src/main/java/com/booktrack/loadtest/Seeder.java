@@ -0,0 +1,93 @@
+package com.booktrack.loadtest;
+
+import com.booktrack.model.Booking;
+import com.booktrack.model.Service;
+import com.booktrack.model.User;
+import com.booktrack.service.JwtService;
+import com.booktrack.service.PasswordService;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Writes the initial data set straight into Mongo (bypassing BCrypt on every
+ * account) and mints a token for each account so the workload can act as it.
+ */
+final class Seeder {
+
+    static final String PASSWORD = "loadtest-password";
+    static final String[] CATEGORIES = {"cleaning", "plumbing", "electrical", "beauty", "tutoring", "moving"};
+    private static final String[] STATUSES = {"pending", "accepted", "completed", "cancelled", "rejected"};
+
+    private final MongoTemplate mongoTemplate;
+    private final PasswordService passwordService;
+    private final JwtService jwtService;
+    private final Random rnd = new Random(20261018);
+
+    Seeder(MongoTemplate mongoTemplate, PasswordService passwordService, JwtService jwtService) {
+        this.mongoTemplate = mongoTemplate;
+        this.passwordService = passwordService;
+        this.jwtService = jwtService;
+    }
+
+    record Actor(String id, String token) {
+    }
+
+    record Dataset(List<Actor> users, Map<String, Actor> providers, List<String> serviceIds) {
+    }
+
+    Dataset seed(LoadTestOptions opts) {
+        String hashed = passwordService.hashPassword(PASSWORD);
+
+        List<User> users = new ArrayList<>(opts.users());
+        for (int i = 0; i < opts.users(); i++) {
+            users.add(User.newUser("user" + i + "@loadtest.local", "User " + i, "user", "555-0100", hashed));
+        }
+        List<User> providers = new ArrayList<>(opts.providers());
+        for (int i = 0; i < opts.providers(); i++) {
+            providers.add(User.newUser("provider" + i + "@loadtest.local", "Provider " + i, "provider", "555-0200", hashed));
+        }
+        mongoTemplate.insert(users, User.class);
+        mongoTemplate.insert(providers, User.class);
+
+        List<Service> services = new ArrayList<>(opts.services());
+        for (int i = 0; i < opts.services(); i++) {
+            services.add(Service.newService(
+                    providers.get(i % providers.size()),
+                    "Service " + i,
+                    "Load test service " + i,
+                    CATEGORIES[rnd.nextInt(CATEGORIES.length)],
+                    10 + rnd.nextInt(490),
+                    "City " + rnd.nextInt(25),
+                    30 + 15 * rnd.nextInt(8),
+                    "https://images.example.com/" + i + ".jpg"
+            ));
+        }
+        mongoTemplate.insert(services, Service.class);
+
+        List<Booking> bookings = new ArrayList<>(opts.bookings());
+        for (int i = 0; i < opts.bookings(); i++) {
+            Booking b = Booking.newBooking(
+                    users.get(rnd.nextInt(users.size())),
+                    services.get(rnd.nextInt(services.size())),
+                    "2026-" + String.format("%02d-%02d", 1 + rnd.nextInt(12), 1 + rnd.nextInt(28)),
+                    String.format("%02d:00", 8 + rnd.nextInt(10))
+            );
+            b.setStatus(STATUSES[rnd.nextInt(STATUSES.length)]);
+            bookings.add(b);
+        }
+        mongoTemplate.insert(bookings, Booking.class);
+
+        List<Actor> userActors = users.stream()
+                .map(u -> new Actor(u.getId(), jwtService.createAccessToken(u)))
+                .toList();
+        Map<String, Actor> providerActors = new HashMap<>();
+        providers.forEach(p -> providerActors.put(p.getId(), new Actor(p.getId(), jwtService.createAccessToken(p))));
+
+        return new Dataset(userActors, providerActors, services.stream().map(Service::getId).toList());
+    }
+}
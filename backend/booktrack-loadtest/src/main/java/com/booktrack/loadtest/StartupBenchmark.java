@@ -0,0 +1,170 @@
+package com.booktrack.loadtest;
+
+import ch.qos.logback.classic.Level;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures time-to-first-request of the backend: launches it as a child
+ * process against an in-process Mongo, polls {@code GET /api/} and records
+ * the time from process start to the first 200. Each variant is a full
+ * {@code java ...} command line; Mongo, port and Stripe arguments are
+ * appended. See {@code startup-benchmark.sh} for the variants we compare.
+ *
+ * <pre>
+ * StartupBenchmark [--runs 5] [--prepare "java ..."]... label="java ..." ...
+ * </pre>
+ * {@code --prepare} commands (e.g. a CDS training run) are run to completion
+ * once before measuring.
+ */
+public final class StartupBenchmark {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(120);
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int runs = 5;
+        List<String> prepare = new ArrayList<>();
+        Map<String, String> variants = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--runs" -> runs = Integer.parseInt(args[++i]);
+                case "--prepare" -> prepare.add(args[++i]);
+                default -> {
+                    int eq = args[i].indexOf('=');
+                    if (eq <= 0) {
+                        throw new IllegalArgumentException("Expected label=command, got: " + args[i]);
+                    }
+                    variants.put(args[i].substring(0, eq), args[i].substring(eq + 1));
+                }
+            }
+        }
+
+        // Runs outside Spring, so logback would otherwise log at DEBUG.
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        MongoServer mongo = new MongoServer(new MemoryBackend());
+        InetSocketAddress mongoAddress = mongo.bind();
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        try {
+            for (String command : prepare) {
+                System.out.println("Preparing: " + command);
+                Process p = launch(command, mongoAddress, freePort());
+                if (!p.waitFor(TIMEOUT.toSeconds(), TimeUnit.SECONDS)) {
+                    p.destroyForcibly();
+                    throw new IllegalStateException("Prepare step timed out: " + command);
+                }
+            }
+
+            // Runs are interleaved, with the starting variant rotated each
+            // round, so that drift on the machine (page cache, CPU steal)
+            // spreads over all variants instead of favouring whichever ran
+            // last.
+            List<String> labels = new ArrayList<>(variants.keySet());
+            Map<String, long[]> results = new LinkedHashMap<>();
+            for (String label : labels) {
+                results.put(label, new long[runs]);
+            }
+            for (int r = 0; r < runs; r++) {
+                for (int k = 0; k < labels.size(); k++) {
+                    String label = labels.get((r + k) % labels.size());
+                    long millis = timeToFirstRequest(http, variants.get(label), mongoAddress);
+                    results.get(label)[r] = millis;
+                    System.out.printf("%-12s run %d: %d ms%n", label, r + 1, millis);
+                }
+            }
+
+            System.out.printf("%n%-12s %10s %10s %10s %10s %10s%n",
+                    "variant", "median_ms", "mean_ms", "stdev_ms", "min_ms", "max_ms");
+            results.forEach((label, millis) -> {
+                long[] sorted = millis.clone();
+                Arrays.sort(sorted);
+                double mean = Arrays.stream(sorted).average().orElse(0);
+                double var = Arrays.stream(sorted).mapToDouble(m -> (m - mean) * (m - mean)).sum()
+                        / Math.max(1, sorted.length - 1);
+                System.out.printf("%-12s %10d %10.0f %10.0f %10d %10d%n",
+                        label, sorted[sorted.length / 2], mean, Math.sqrt(var), sorted[0], sorted[sorted.length - 1]);
+            });
+        } finally {
+            mongo.shutdownNow();
+        }
+    }
+
+    private static long timeToFirstRequest(HttpClient http, String command, InetSocketAddress mongo) throws Exception {
+        int port = freePort();
+        long start = System.nanoTime();
+        Process p = launch(command, mongo, port);
+        try {
+            HttpRequest req = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/api/"))
+                    .timeout(Duration.ofSeconds(5))
+                    .build();
+            while (System.nanoTime() - start < TIMEOUT.toNanos()) {
+                if (!p.isAlive()) {
+                    throw new IllegalStateException("Backend exited with " + p.exitValue() + ": " + command);
+                }
+                try {
+                    if (http.send(req, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    }
+                } catch (ConnectException | HttpConnectTimeoutException e) {
+                    // not listening yet
+                }
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            throw new IllegalStateException("No response within " + TIMEOUT + ": " + command);
+        } finally {
+            p.destroy();
+            if (!p.waitFor(30, TimeUnit.SECONDS)) {
+                p.destroyForcibly();
+            }
+        }
+    }
+
+    private static Process launch(String command, InetSocketAddress mongo, int port) throws IOException {
+        List<String> cmd = new ArrayList<>(Arrays.asList(command.trim().split("\\s+")));
+        cmd.addAll(List.of(
+                "--spring.data.mongodb.uri=mongodb://127.0.0.1:" + mongo.getPort(),
+                "--spring.data.mongodb.database=booktrack_startup",
+                "--server.port=" + port,
+                "--socketio.host=127.0.0.1",
+                "--socketio.port=" + freePort(),
+                "--app.stripe.api-key=sk_test_startup",
+                "--app.recommendations.snapshot-path=",
+                "--app.catalog.snapshot.path=",
+                "--app.tracing.file=",
+                "--logging.level.root=WARN"
+        ));
+        return new ProcessBuilder(cmd)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(new File("target/startup-benchmark.log")))
+                .start();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket s = new ServerSocket(0)) {
+            return s.getLocalPort();
+        }
+    }
+}
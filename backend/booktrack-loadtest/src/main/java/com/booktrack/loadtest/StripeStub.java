@@ -0,0 +1,87 @@
+package com.booktrack.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+
+/**
+ * Minimal stand-in for the Stripe checkout sessions API. Created sessions are
+ * reported as open and unpaid; retrieved sessions are complete and paid,
+ * unless the session id contains {@code _open_}, {@code _expired_} or
+ * {@code _missing_} (an unknown session, answered with a 404). Every response
+ * can be delayed to mimic network latency.
+ */
+final class StripeStub implements AutoCloseable {
+
+    private final HttpServer server;
+    private final long latencyMillis;
+
+    StripeStub() throws IOException {
+        this(0);
+    }
+
+    StripeStub(long latencyMillis) throws IOException {
+        this.latencyMillis = latencyMillis;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/checkout/sessions", this::handle);
+        server.setExecutor(Executors.newFixedThreadPool(32));
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        String path = exchange.getRequestURI().getPath();
+        String id = path.substring(path.lastIndexOf('/') + 1);
+        int code = 200;
+        String body;
+        if ("POST".equals(exchange.getRequestMethod())) {
+            body = session("cs_test_" + UUID.randomUUID().toString().replace("-", ""), "open", "unpaid");
+        } else if (id.contains("_missing_")) {
+            code = 404;
+            body = "{\"error\":{\"type\":\"invalid_request_error\",\"code\":\"resource_missing\","
+                    + "\"message\":\"No such checkout.session: '" + id + "'\"}}";
+        } else if (id.contains("_open_")) {
+            body = session(id, "open", "unpaid");
+        } else if (id.contains("_expired_")) {
+            body = session(id, "expired", "unpaid");
+        } else {
+            body = session(id, "complete", "paid");
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.getResponseHeaders().add("Request-Id", "req_stub");
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private String session(String id, String status, String paymentStatus) {
+        return "{\"id\":\"" + id + "\",\"object\":\"checkout.session\",\"currency\":\"usd\","
+                + "\"mode\":\"payment\",\"status\":\"" + status + "\",\"payment_status\":\"" + paymentStatus + "\","
+                + "\"url\":\"" + baseUrl() + "/pay/" + id + "\",\"metadata\":{}}";
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        ((java.util.concurrent.ExecutorService) server.getExecutor()).shutdownNow();
+    }
+}
@@ -0,0 +1,241 @@
+package com.booktrack.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives the booking lifecycle against a running API. Bookings created by
+ * {@code BOOK} flow through {@code ACCEPT} and {@code PAY} into {@code REVIEW};
+ * when a stage has nothing to work on the worker falls back to the previous one.
+ */
+final class Workload {
+
+    private static final int MAX_BACKLOG = 10_000;
+    private static final String[] SEARCH_SORTS = {"price_asc", "price_desc", "rating", "popularity", "relevance"};
+
+    private final String baseUrl;
+    private final Seeder.Dataset data;
+    private final HttpClient http;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+    private final Operation[] schedule;
+
+    private final Queue<BookingRef> pending = new ConcurrentLinkedQueue<>();
+    private final Queue<BookingRef> accepted = new ConcurrentLinkedQueue<>();
+    private final Queue<BookingRef> reviewable = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger backlog = new AtomicInteger();
+
+    private record BookingRef(String id, String serviceId, Seeder.Actor user, Seeder.Actor provider) {
+    }
+
+    Workload(String baseUrl, Seeder.Dataset data, Map<Operation, Integer> mix) {
+        this.baseUrl = baseUrl;
+        this.data = data;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        this.schedule = new Operation[total];
+        int i = 0;
+        for (Map.Entry<Operation, Integer> e : mix.entrySet()) {
+            for (int n = 0; n < e.getValue(); n++) {
+                schedule[i++] = e.getKey();
+            }
+        }
+    }
+
+    Map<String, EndpointStats> stats() {
+        return stats;
+    }
+
+    void resetStats() {
+        stats.values().forEach(EndpointStats::reset);
+    }
+
+    void runOnce() {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        switch (schedule[rnd.nextInt(schedule.length)]) {
+            case BROWSE -> browse(rnd);
+            case VIEW -> view(rnd);
+            case BOOK -> book(rnd);
+            case ACCEPT -> accept(rnd);
+            case PAY -> pay(rnd);
+            case REVIEW -> review(rnd);
+            case ANALYTICS -> analytics(rnd);
+            case SEARCH -> search(rnd);
+            case FACETS -> facets(rnd);
+            case SUGGEST -> suggest(rnd);
+        }
+    }
+
+    private void browse(ThreadLocalRandom rnd) {
+        if (rnd.nextBoolean()) {
+            send("GET /api/services", get("/api/services", null));
+        } else {
+            String category = Seeder.CATEGORIES[rnd.nextInt(Seeder.CATEGORIES.length)];
+            send("GET /api/services?category", get("/api/services?category=" + category, null));
+        }
+    }
+
+    private void view(ThreadLocalRandom rnd) {
+        String id = data.serviceIds().get(rnd.nextInt(data.serviceIds().size()));
+        send("GET /api/services/{service_id}", get("/api/services/" + id, null));
+    }
+
+    private void book(ThreadLocalRandom rnd) {
+        Seeder.Actor user = data.users().get(rnd.nextInt(data.users().size()));
+        String serviceId = data.serviceIds().get(rnd.nextInt(data.serviceIds().size()));
+        String body = "{\"serviceId\":\"" + serviceId + "\",\"date\":\"2026-12-"
+                + String.format("%02d", 1 + rnd.nextInt(28)) + "\",\"time\":\"10:00\"}";
+        JsonNode booking = send("POST /api/bookings", json("POST", "/api/bookings", body, user));
+        if (booking != null && backlog.get() < MAX_BACKLOG) {
+            Seeder.Actor provider = data.providers().get(booking.path("providerId").asText());
+            if (provider != null) {
+                backlog.incrementAndGet();
+                pending.add(new BookingRef(booking.path("id").asText(), serviceId, user, provider));
+            }
+        }
+    }
+
+    private void accept(ThreadLocalRandom rnd) {
+        BookingRef b = pending.poll();
+        if (b == null) {
+            book(rnd);
+            return;
+        }
+        if (updateStatus(b, "accepted") != null) {
+            accepted.add(b);
+        } else {
+            backlog.decrementAndGet();
+        }
+    }
+
+    private void pay(ThreadLocalRandom rnd) {
+        BookingRef b = accepted.poll();
+        if (b == null) {
+            accept(rnd);
+            return;
+        }
+        if (updateStatus(b, "completed") == null) {
+            backlog.decrementAndGet();
+            return;
+        }
+        String path = "/api/payments/create-checkout?booking_id=" + b.id()
+                + "&origin_url=" + URLEncoder.encode("http://localhost:3000", StandardCharsets.UTF_8);
+        JsonNode checkout = send("POST /api/payments/create-checkout", json("POST", path, "", b.user()));
+        if (checkout != null) {
+            send("GET /api/payments/checkout-status/{session_id}",
+                    get("/api/payments/checkout-status/" + checkout.path("session_id").asText(), b.user()));
+        }
+        reviewable.add(b);
+    }
+
+    private void review(ThreadLocalRandom rnd) {
+        BookingRef b = reviewable.poll();
+        if (b == null) {
+            pay(rnd);
+            return;
+        }
+        backlog.decrementAndGet();
+        String body = "{\"serviceId\":\"" + b.serviceId() + "\",\"bookingId\":\"" + b.id()
+                + "\",\"rating\":" + (1 + rnd.nextInt(5)) + ",\"comment\":\"load test review\"}";
+        send("POST /api/reviews", json("POST", "/api/reviews", body, b.user()));
+    }
+
+    private void search(ThreadLocalRandom rnd) {
+        String sort = SEARCH_SORTS[rnd.nextInt(SEARCH_SORTS.length)];
+        String path = "/api/services/search?limit=20&sort=" + sort;
+        if (rnd.nextBoolean()) {
+            path += "&category=" + Seeder.CATEGORIES[rnd.nextInt(Seeder.CATEGORIES.length)];
+        }
+        JsonNode page = send("GET /api/services/search", get(path, null));
+        if (page != null && page.hasNonNull("next_cursor")) {
+            send("GET /api/services/search?cursor", get(path + "&cursor=" + page.get("next_cursor").asText(), null));
+        }
+    }
+
+    private void facets(ThreadLocalRandom rnd) {
+        String path = "/api/services/facets";
+        if (rnd.nextBoolean()) {
+            path += "?category=" + Seeder.CATEGORIES[rnd.nextInt(Seeder.CATEGORIES.length)];
+        }
+        send("GET /api/services/facets", get(path, null));
+    }
+
+    private void suggest(ThreadLocalRandom rnd) {
+        String word = rnd.nextBoolean()
+                ? Seeder.CATEGORIES[rnd.nextInt(Seeder.CATEGORIES.length)]
+                : "service " + rnd.nextInt(10);
+        String prefix = word.substring(0, 1 + rnd.nextInt(word.length()));
+        send("GET /api/services/suggest",
+                get("/api/services/suggest?q=" + URLEncoder.encode(prefix, StandardCharsets.UTF_8), null));
+    }
+
+    private void analytics(ThreadLocalRandom rnd) {
+        Seeder.Actor[] providers = data.providers().values().toArray(new Seeder.Actor[0]);
+        Seeder.Actor provider = providers[rnd.nextInt(providers.length)];
+        LocalDate to = LocalDate.now(ZoneOffset.UTC);
+        send("GET /api/providers/me/analytics",
+                get("/api/providers/me/analytics?from=" + to.minusDays(30) + "&to=" + to, provider));
+    }
+
+    private JsonNode updateStatus(BookingRef b, String status) {
+        return send("PUT /api/bookings/{booking_id}/status",
+                json("PUT", "/api/bookings/" + b.id() + "/status", "{\"status\":\"" + status + "\"}", b.provider()));
+    }
+
+    private HttpRequest get(String path, Seeder.Actor actor) {
+        HttpRequest.Builder req = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .GET();
+        if (actor != null) {
+            req.header("Authorization", "Bearer " + actor.token());
+        }
+        return req.build();
+    }
+
+    private HttpRequest json(String method, String path, String body, Seeder.Actor actor) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + actor.token())
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private JsonNode send(String endpoint, HttpRequest request) {
+        EndpointStats s = stats.computeIfAbsent(endpoint, EndpointStats::new);
+        long start = System.nanoTime();
+        try {
+            HttpResponse<byte[]> res = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            s.record(System.nanoTime() - start, res.statusCode());
+            if (res.statusCode() >= 400) {
+                return null;
+            }
+            return mapper.readTree(res.body());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            s.recordFailure(System.nanoTime() - start, e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+#!/usr/bin/env bash
+# Time-to-first-request of the backend, comparing the plain fat jar with the
+# startup-optimized setups:
+#
+#   extracted  - jar extracted with -Djarmode=tools (the layout CDS needs)
+#   cds        - extracted + an AppCDS archive from a training run
+#   cds+aot    - extracted + AppCDS + Spring AOT initializers (-Pstartup)
+#
+# Usage: ./startup-benchmark.sh [runs]   (runs defaults to 10)
+# Runs offline against an in-process Mongo; per-run output goes to
+# target/startup-benchmark.log.
+set -euo pipefail
+cd "$(dirname "$0")"
+
+RUNS="${1:-10}"
+BACKEND=../booktrack-java-backend
+OUT=target/startup
+JAR="$BACKEND/target/booktrack-backend-1.0.0-exec.jar"
+
+mvn -B -q -f "$BACKEND/pom.xml" -Pstartup install -DskipTests
+mvn -B -q package -DskipTests
+
+rm -rf "$OUT" target/startup-benchmark.log
+mkdir -p "$OUT"
+java -Djarmode=tools -jar "$JAR" extract --destination "$OUT/app"
+APP="$OUT/app/$(basename "$JAR")"
+
+# Training runs stop right after the context refreshes and dump the classes
+# loaded so far into a dynamic CDS archive.
+TRAIN="-Dspring.context.exit=onRefresh"
+
+java -cp target/loadtest.jar \
+    -Dloader.main=com.booktrack.loadtest.StartupBenchmark \
+    org.springframework.boot.loader.launch.PropertiesLauncher \
+    --runs "$RUNS" \
+    --prepare "java -XX:ArchiveClassesAtExit=$OUT/app.jsa $TRAIN -jar $APP" \
+    --prepare "java -XX:ArchiveClassesAtExit=$OUT/app-aot.jsa -Dspring.aot.enabled=true $TRAIN -jar $APP" \
+    "fat-jar=java -jar $JAR" \
+    "extracted=java -jar $APP" \
+    "cds=java -XX:SharedArchiveFile=$OUT/app.jsa -jar $APP" \
+    "cds+aot=java -XX:SharedArchiveFile=$OUT/app-aot.jsa -Dspring.aot.enabled=true -jar $APP"
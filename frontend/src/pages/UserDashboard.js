@@ -50,8 +50,17 @@ const UserDashboard = ({ user, logout, socket }) => {
         fetchBookings();
       });
 
+      socket.on('booking_status_batch_update', (data) => {
+        const mine = data.updates.filter(u => bookings.some(b => b.id === u.booking_id));
+        if (mine.length > 0) {
+          toast.info(`${mine.length} booking(s) updated`);
+          fetchBookings();
+        }
+      });
+
       return () => {
         socket.off('booking_status_update');
+        socket.off('booking_status_batch_update');
       };
     }
   }, [socket, bookings]);